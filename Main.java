@@ -25,41 +25,91 @@ import io.micrometer.prometheus.PrometheusConfig;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.micrometer.prometheus.rsocket.PrometheusRSocketClient;
 import io.rsocket.transport.netty.client.TcpClientTransport;
+import org.apache.commons.cli.*;
+import org.eclipse.jgit.diff.*;
 import org.openrewrite.Change;
 import org.openrewrite.Refactor;
+import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.tree.J;
 import org.slf4j.LoggerFactory;
 import reactor.netty.tcp.TcpClient;
 import reactor.util.retry.Retry;
 
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Duration;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
-import static java.util.stream.Collectors.toList;
 
 public class Main {
+    /**
+     * Constructing a parser builds the compiler context, symbol tables and classpath scan, which dominates the cost
+     * of parsing small files. Each worker thread keeps one warm parser that is reset between compilation units.
+     */
+    private static final ThreadLocal<JavaParser> javaParsers = ThreadLocal.withInitial(() -> new JavaParser()
+            .setLogCompilationWarningsAndErrors(false));
+
+    private static final int MAX_REWRITE_CHECKSTYLES = 4;
+
+    /**
+     * Visitors by the configuration they were built from, least recently used first. A daemon serves one checkout
+     * or a handful of them, so only a few are kept, and a configuration that is edited between runs pushes out the
+     * visitors of its previous version rather than keeping them for the life of the process.
+     */
+    private static final Map<String, ThreadLocal<RewriteCheckstyle>> rewriteCheckstyles =
+            new LinkedHashMap<String, ThreadLocal<RewriteCheckstyle>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ThreadLocal<RewriteCheckstyle>> eldest) {
+                    return size() > MAX_REWRITE_CHECKSTYLES;
+                }
+            };
+
+    private static final String EXIT_CODE_PREFIX = "rewrite-checkstyle-exit-code:";
+    private static final String STDERR_PREFIX = "rewrite-checkstyle-stderr:";
+
     static {
         Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
         logger.setLevel(Level.INFO);
     }
 
     public static void main(String[] args) throws ParseException, IOException {
-        PrometheusRSocketClient metricsClient = null;
+        CommandLine line = new DefaultParser().parse(options(), args);
 
-        try {
-            CommandLineParser parser = new DefaultParser();
-            Options options = new Options();
-            options.addOption("f", "file", true, "Checkstyle configuration XML file");
-            options.addOption("c", "config", true, "Checkstyle configuration XML");
-            options.addOption("l", "limit", true, "Limit number of files processed");
-            options.addOption("r", "regex", true, "Glob filter");
-            options.addOption("m", "metrics", false, "Publish metrics");
+        if (line.hasOption("connect")) {
+            System.exit(forwardToDaemon(Integer.parseInt(line.getOptionValue("connect")), args));
+        }
 
-            CommandLine line = parser.parse(options, args);
+        PrometheusRSocketClient metricsClient = null;
 
+        try {
             if (line.hasOption("m")) {
                 PrometheusMeterRegistry prometheusMeterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
                 metricsClient = PrometheusRSocketClient
@@ -73,62 +123,1194 @@ public class Main {
                 new ProcessorMetrics().bindTo(Metrics.globalRegistry);
             }
 
-            RewriteCheckstyle rewriteCheckstyle;
+            int threads = Integer.parseInt(line.getOptionValue("t", "1"));
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            try {
+                if (line.hasOption("daemon")) {
+                    serve(Integer.parseInt(line.getOptionValue("daemon")), workers, threads);
+                } else {
+                    run(line, Path.of("").toAbsolutePath(), workers, threads, System.out, System.err);
+                }
+            } finally {
+                workers.shutdown();
+            }
+        } finally {
+            if (metricsClient != null) {
+                metricsClient.pushAndClose().block(Duration.ofSeconds(10));
+            }
+        }
+    }
+
+    private static Options options() {
+        Options options = new Options();
+        options.addOption("f", "file", true, "Checkstyle configuration XML file");
+        options.addOption("c", "config", true, "Checkstyle configuration XML");
+        options.addOption("l", "limit", true, "Limit number of files processed");
+        options.addOption("r", "regex", true, "Glob filter");
+        options.addOption("m", "metrics", false, "Publish metrics");
+        options.addOption("t", "threads", true, "Number of worker threads that parse, fix and write files concurrently");
+        options.addOption("b", "batch-size", true, "Maximum number of files in the same directory to parse together");
+        options.addOption("k", "cache", true, "Directory of a cache recording files that are already clean");
+        options.addOption("s", "since", true, "Only process files added or changed since this git ref");
+        options.addOption("d", "dry-run", false, "Print unified diffs of the fixes instead of writing them");
+        options.addOption("p", "patch", true, "Write the diffs of a dry run to this file instead of the console");
+        options.addOption("x", "exclude-dirs", true, "Comma-separated directory names to skip, in addition to those in .gitignore");
+        options.addOption(Option.builder().longOpt("daemon").hasArg().argName("port")
+                .desc("Stay running and serve requests from clients on this loopback port").build());
+        options.addOption(Option.builder().longOpt("connect").hasArg().argName("port")
+                .desc("Forward the other arguments to a daemon listening on this loopback port").build());
+        options.addOption(Option.builder().longOpt("file-timeout").hasArg().argName("seconds")
+                .desc("Leave a file unchanged if fixing it takes longer than this, and report it in slow-files.log").build());
+        options.addOption(Option.builder().longOpt("visitor-timeout").hasArg().argName("seconds")
+                .desc("Leave a file unchanged if any one rule takes longer than this on it (defaults to --file-timeout)").build());
+        options.addOption(Option.builder().longOpt("max-passes").hasArg().argName("count")
+                .desc("The most passes a rule makes over a file when its own fixes make further fixes possible (default "
+                        + CheckstyleRefactorVisitor.DEFAULT_MAX_PASSES + ")").build());
+        return options;
+    }
+
+    /**
+     * Fixes the source tree under {@code root} according to the options in {@code line}.
+     *
+     * @param parallelism The number of threads in {@code workers}.
+     * @param out         Where to print the rules that made changes and, unless a patch file is given, diffs.
+     * @param err         Where to print the rules that made changes instead, when diffs are printed to {@code out},
+     *                    so that {@code out} can be piped straight to {@code git apply} or {@code patch}.
+     */
+    private static void run(CommandLine line, Path root, ExecutorService workers, int parallelism, PrintStream out,
+                            PrintStream err) throws IOException {
+        byte[] config;
+        Path configFile = null;
+        if (line.hasOption("f")) {
+            configFile = root.resolve(line.getOptionValue("f"));
+            config = Files.readAllBytes(configFile);
+        } else if (line.hasOption("c")) {
+            config = line.getOptionValue("c").getBytes(Charsets.UTF_8);
+        } else {
+            throw new IllegalArgumentException("Supply either a config XML file via -f or an inline config via -c");
+        }
+
+        ThreadLocal<RewriteCheckstyle> rewriteCheckstyle = rewriteCheckstyle(config, configFile, root);
+        CleanFileCache cache = line.hasOption("k") ?
+                new CleanFileCache(root.resolve(line.getOptionValue("k")), config,
+                        rewriteCheckstyle.get().getSuppressionsFile()) :
+                null;
+
+        Duration fileTimeout = line.hasOption("file-timeout") ?
+                Duration.ofSeconds(Long.parseLong(line.getOptionValue("file-timeout"))) :
+                null;
+        Duration visitorTimeout = line.hasOption("visitor-timeout") ?
+                Duration.ofSeconds(Long.parseLong(line.getOptionValue("visitor-timeout"))) :
+                fileTimeout;
+        if (fileTimeout == null) {
+            fileTimeout = visitorTimeout;
+        }
+
+        int maxPasses = line.hasOption("max-passes") ?
+                Integer.parseInt(line.getOptionValue("max-passes")) :
+                CheckstyleRefactorVisitor.DEFAULT_MAX_PASSES;
+
+        Pipeline pipeline = new Pipeline(root, rewriteCheckstyle, cache, line.hasOption("d"),
+                fileTimeout, visitorTimeout, maxPasses);
+
+        PathMatcher pathMatcher = line.hasOption("r") ?
+                FileSystems.getDefault().getPathMatcher("glob:" + line.getOptionValue("r")) :
+                null;
+
+        // directories named on the command line are pruned wherever they are, as they always have been
+        Set<String> excludedDirectories = line.hasOption("x") ?
+                new HashSet<>(Arrays.asList(line.getOptionValue("x").split("\\s*,\\s*"))) :
+                SourceDiscovery.DEFAULT_EXCLUDED_DIRECTORIES;
+        Set<String> excludedOutputDirectories = line.hasOption("x") ?
+                Collections.emptySet() :
+                SourceDiscovery.DEFAULT_EXCLUDED_OUTPUT_DIRECTORIES;
+
+        Stream<Path> sourcePaths = (line.hasOption("s") ?
+                changedSince(root, line.getOptionValue("s")) :
+                new SourceDiscovery(root, excludedDirectories, excludedOutputDirectories).stream())
+                .filter(p -> p.toFile().getName().endsWith(".java"))
+                .filter(p -> pathMatcher == null || pathMatcher.matches(root.relativize(p)))
+                .limit(Integer.parseInt(line.getOptionValue("l", "2147483647")));
+
+        int batchSize = Integer.parseInt(line.getOptionValue("b", "1"));
+        PrintStream messages = line.hasOption("d") && !line.hasOption("p") ? err : out;
+        try (Writer diffs = line.hasOption("p") ?
+                Files.newBufferedWriter(root.resolve(line.getOptionValue("p"))) :
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8) {
+                    @Override
+                    public void close() throws IOException {
+                        // flush, but leave the console open
+                        flush();
+                    }
+                })) {
+            // results are drained in submission order so console output and diffs don't depend on scheduling,
+            // and the number of batches in flight is bounded so memory doesn't grow with the size of the
+            // repository or of its diffs
+            Deque<Future<BatchResult>> inFlight = new ArrayDeque<>();
+            for (List<Path> batch : batchByDirectory(sourcePaths, batchSize)) {
+                inFlight.add(workers.submit(() -> pipeline.fix(batch)));
+                if (inFlight.size() >= parallelism * 4) {
+                    printResult(inFlight.poll(), messages, diffs);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                printResult(inFlight.poll(), messages, diffs);
+            }
+        }
+
+        messages.println((line.hasOption("d") ? "Would write " : "Wrote ") + pipeline.filesWritten.get() + " files, skipped " +
+                pipeline.writesSkipped.get() + " whose fixed source was identical to the original");
+    }
+
+    /**
+     * Loading a configuration and instantiating its visitors is repeated for every run in a long-lived process,
+     * so they are kept per distinct configuration for the most recent runs. The same configuration in two
+     * checkouts may refer to different suppressions files, so the configuration file and the root that a relative
+     * suppressions file is resolved against are part of what makes it distinct.
+     */
+    private static ThreadLocal<RewriteCheckstyle> rewriteCheckstyle(byte[] config, @Nullable Path configFile, Path root) {
+        MessageDigest digest = CleanFileCache.sha256();
+        digest.update(config);
+        if (configFile != null) {
+            digest.update((configFile.toAbsolutePath().normalize() + "\0").getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(root.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        synchronized (rewriteCheckstyles) {
+            return rewriteCheckstyles.computeIfAbsent(hex(digest.digest()), k -> {
+                // the configuration is loaded once, and each worker thread gets visitors of its own built from it.
+                // A configuration file is loaded from the snapshot next to it, when one is up to date
+                RewriteCheckstyle prototype = configFile == null ?
+                        new RewriteCheckstyle(new ByteArrayInputStream(config), null, root) :
+                        new RewriteCheckstyle(configFile, null, root);
+                return ThreadLocal.withInitial(prototype::copy);
+            });
+        }
+    }
 
-            if (line.hasOption("f")) {
-                try (InputStream is = new FileInputStream(new File(line.getOptionValue("f")))) {
-                    rewriteCheckstyle = new RewriteCheckstyle(is);
+    /**
+     * Serves requests from {@link #forwardToDaemon(int, String[])} clients one at a time, so the JVM, the loaded
+     * configurations and the warm parsers and visitors on each worker thread are reused from one request to the
+     * next. Only connections on the loopback interface are accepted, and only from clients that present the token
+     * written to a file that only the user running the daemon can read, since any local user can connect to a
+     * loopback port.
+     */
+    private static void serve(int port, ExecutorService workers, int parallelism) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            byte[] token = writeDaemonToken(server.getLocalPort());
+            System.out.println("Listening on " + server.getLocalSocketAddress());
+            //noinspection InfiniteLoopStatement
+            while (true) {
+                try (Socket client = server.accept()) {
+                    handle(client, token, workers, parallelism);
+                } catch (IOException e) {
+                    // a client that went away shouldn't take the daemon down with it
+                    System.err.println("Failed to serve request: " + e.getMessage());
                 }
-            } else if (line.hasOption("c")) {
-                try (InputStream is = new ByteArrayInputStream(line.getOptionValue("c").getBytes(Charsets.UTF_8))) {
-                    rewriteCheckstyle = new RewriteCheckstyle(is);
+            }
+        }
+    }
+
+    private static void handle(Socket client, byte[] token, ExecutorService workers, int parallelism) throws IOException {
+        DataInputStream request = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+        byte[] presented = new byte[token.length];
+        request.readFully(presented);
+        if (!MessageDigest.isEqual(token, presented)) {
+            throw new IOException("Rejected a client that didn't present the daemon's token");
+        }
+
+        Path root = Path.of(request.readUTF());
+        String[] args = new String[request.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            byte[] arg = new byte[request.readInt()];
+            request.readFully(arg);
+            args[i] = new String(arg, StandardCharsets.UTF_8);
+        }
+
+        PrintStream out = new PrintStream(new BufferedOutputStream(client.getOutputStream()), false, StandardCharsets.UTF_8);
+        int exitCode = 0;
+        try {
+            CommandLine line = new DefaultParser().parse(options(), args);
+            if (line.hasOption("daemon") || line.hasOption("connect")) {
+                throw new IllegalArgumentException("--daemon and --connect can't be forwarded to a daemon");
+            }
+            run(line, root, workers, parallelism, out, new ForwardedStandardError(out));
+        } catch (Exception e) {
+            out.println("error: " + e.getMessage());
+            exitCode = 1;
+        }
+        out.println(EXIT_CODE_PREFIX + exitCode);
+        out.flush();
+    }
+
+    /**
+     * Sends the working directory and arguments of this invocation to a daemon and echoes its output.
+     *
+     * @return The exit code of the run on the daemon.
+     */
+    private static int forwardToDaemon(int port, String[] args) throws IOException {
+        List<String> forwarded = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--connect")) {
+                i++;
+            } else if (!args[i].startsWith("--connect=")) {
+                forwarded.add(args[i]);
+            }
+        }
+
+        Path tokenFile = daemonTokenFile(port);
+        if (!Files.isReadable(tokenFile)) {
+            throw new IOException("No daemon started by this user is listening on port " + port + " (" + tokenFile + " is missing)");
+        }
+        byte[] token = Files.readAllBytes(tokenFile);
+
+        try (Socket daemon = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(daemon.getOutputStream()));
+            request.write(token);
+            request.writeUTF(Path.of("").toAbsolutePath().toString());
+            request.writeInt(forwarded.size());
+            for (String arg : forwarded) {
+                byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+                request.writeInt(bytes.length);
+                request.write(bytes);
+            }
+            request.flush();
+
+            BufferedReader response = new BufferedReader(new InputStreamReader(daemon.getInputStream(), StandardCharsets.UTF_8));
+            // the exit code is the last line, so each line is held back until the one after it has arrived
+            String previous = null;
+            String next;
+            while ((next = response.readLine()) != null) {
+                if (previous != null && previous.startsWith(STDERR_PREFIX)) {
+                    System.err.println(previous.substring(STDERR_PREFIX.length()));
+                } else if (previous != null) {
+                    System.out.println(previous);
                 }
-            } else {
-                throw new IllegalArgumentException("Supply either a config XML file via -f or an inline config via -c");
+                previous = next;
+            }
+
+            if (previous == null || !previous.startsWith(EXIT_CODE_PREFIX)) {
+                throw new IOException("The daemon closed the connection before the run completed");
             }
+            return Integer.parseInt(previous.substring(EXIT_CODE_PREFIX.length()));
+        }
+    }
+
+    private static Path daemonTokenFile(int port) {
+        return Path.of(System.getProperty("user.home"), ".rewrite-checkstyle", "daemon-" + port + ".token");
+    }
 
-            PathMatcher pathMatcher = line.hasOption("r") ?
-                    FileSystems.getDefault().getPathMatcher("glob:" + line.getOptionValue("r")) :
-                    null;
+    /**
+     * Writes a new random token for a daemon listening on {@code port} to a file readable only by the current user.
+     * The file is created with those permissions and then moved into place, so it is never readable by others.
+     *
+     * @return The token.
+     */
+    private static byte[] writeDaemonToken(int port) throws IOException {
+        byte[] token = new byte[32];
+        new SecureRandom().nextBytes(token);
 
-            List<Path> sourcePaths = Files.walk(Path.of(""))
-                    .filter(p -> p.toFile().getName().endsWith(".java"))
-                    .filter(p -> pathMatcher == null || pathMatcher.matches(p))
-                    .limit(Integer.parseInt(line.getOptionValue("l", "2147483647")))
-                    .collect(toList());
+        Path tokenFile = daemonTokenFile(port);
+        Path directory = tokenFile.getParent();
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+
+        Path temp = posix ?
+                Files.createTempFile(directory, tokenFile.getFileName().toString(), ".tmp",
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))) :
+                Files.createTempFile(directory, tokenFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, token);
+            Files.move(temp, tokenFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        tokenFile.toFile().deleteOnExit();
+        return token;
+    }
+
+    /**
+     * Sends each line printed to it to a client's standard error, over the same connection as its standard output,
+     * where {@link #forwardToDaemon(int, String[])} tells them apart by a prefix.
+     */
+    private static class ForwardedStandardError extends PrintStream {
+        private final PrintStream out;
+
+        ForwardedStandardError(PrintStream out) {
+            super(out, false, StandardCharsets.UTF_8);
+            this.out = out;
+        }
 
-            sourcePaths.stream()
-                    .flatMap(javaSource -> {
-                        try {
-                            return new JavaParser()
-                                    .setLogCompilationWarningsAndErrors(false)
-                                    .parse(singletonList(javaSource), Path.of("").toAbsolutePath())
-                                    .stream();
-                        } catch (Throwable t) {
-                            try {
-                                Files.writeString(Path.of("errors-parsing.log"), javaSource.toString(), StandardOpenOption.APPEND);
-                            } catch (IOException ignored) {
+        @Override
+        public void println(String x) {
+            out.println(STDERR_PREFIX + x);
+        }
+    }
+
+    /**
+     * Lists the files in the working tree that were added or modified since {@code ref}, including uncommitted
+     * changes and untracked files that aren't ignored.
+     */
+    private static Stream<Path> changedSince(Path root, String ref) throws IOException {
+        // a ref that looks like an option would otherwise change what git does
+        if (ref.startsWith("-")) {
+            throw new IllegalArgumentException("Not a git ref: " + ref);
+        }
+        String commit = git(root, "rev-parse", "--verify", "--quiet", ref + "^{commit}").trim();
+        if (commit.isEmpty()) {
+            throw new IllegalArgumentException("Not a git ref: " + ref);
+        }
+
+        // NUL-separated output leaves paths with non-ASCII characters unquoted
+        List<Path> changed = new ArrayList<>();
+        changed.addAll(paths(root, git(root, "diff", "-z", "--name-only", "--relative", "--diff-filter=ACMR", commit, "--")));
+        changed.addAll(paths(root, git(root, "ls-files", "-z", "--others", "--exclude-standard")));
+        return changed.stream()
+                .distinct()
+                .filter(Files::exists);
+    }
+
+    private static List<Path> paths(Path root, String nulSeparated) {
+        List<Path> paths = new ArrayList<>();
+        for (String path : nulSeparated.split("\0")) {
+            if (!path.isEmpty()) {
+                paths.add(root.resolve(path));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return The standard output of the git command, or an empty string if it exited with 1 and printed nothing,
+     * as {@code rev-parse --verify --quiet} does for a ref that doesn't exist.
+     */
+    private static String git(Path root, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+
+        Process git = new ProcessBuilder(command)
+                .directory(root.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        String output;
+        try (InputStream in = git.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        try {
+            int exitCode = git.waitFor();
+            if (exitCode != 0 && !(exitCode == 1 && output.isEmpty())) {
+                throw new IOException("'" + String.join(" ", command) + "' exited with " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for git");
+        }
+
+        return output;
+    }
+
+    /**
+     * Groups consecutive source paths that share a parent directory, since files in the same package tend to
+     * reference the same types and are cheaper to attribute together. Batches are produced lazily as source
+     * paths are discovered.
+     */
+    private static Iterable<List<Path>> batchByDirectory(Stream<Path> sourcePaths, int batchSize) {
+        Iterator<Path> sourcePathIterator = sourcePaths.iterator();
+        return () -> new Iterator<>() {
+            @Nullable
+            private Path next = sourcePathIterator.hasNext() ? sourcePathIterator.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public List<Path> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                List<Path> batch = new ArrayList<>();
+                do {
+                    batch.add(next);
+                    next = sourcePathIterator.hasNext() ? sourcePathIterator.next() : null;
+                } while (next != null && batch.size() < batchSize &&
+                        Objects.equals(batch.get(0).getParent(), next.getParent()));
+                return batch;
+            }
+        };
+    }
+
+    /**
+     * A depth-first walk of a source tree that yields paths lazily, so the first file can be processed before the
+     * walk is complete and memory use doesn't grow with the size of the tree. Excluded directories and directories
+     * ignored by a {@code .gitignore} are pruned before they are descended into. The files in each directory are
+     * yielded in name order before any of its subdirectories, so runs over the same tree are deterministic.
+     * <p>
+     * Directories that build tools write their output to are only pruned directly under the root or under a module
+     * root, being a directory with a build file in it, since a package may just as well be named {@code out} or
+     * {@code generated}.
+     * <p>
+     * Only the common subset of {@code .gitignore} syntax is understood: blank lines, comments, a trailing
+     * {@code /} for directory-only patterns, and patterns anchored by a {@code /}. Negated patterns are ignored,
+     * which errs on the side of visiting more files than necessary.
+     */
+    private static class SourceDiscovery {
+        static final Set<String> DEFAULT_EXCLUDED_DIRECTORIES = new HashSet<>(Arrays.asList(
+                ".git", ".gradle", ".idea", "node_modules"));
+
+        static final Set<String> DEFAULT_EXCLUDED_OUTPUT_DIRECTORIES = new HashSet<>(Arrays.asList(
+                "build", "target", "out", "generated", "generated-sources"));
+
+        private static final Set<String> BUILD_FILES = new HashSet<>(Arrays.asList(
+                "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "build.xml"));
+
+        private final Path root;
+        private final Set<String> excludedDirectories;
+        private final Set<String> excludedOutputDirectories;
+
+        /**
+         * @param excludedDirectories       Names of directories to prune wherever they are.
+         * @param excludedOutputDirectories Names of directories to prune only directly under the root or a module root.
+         */
+        SourceDiscovery(Path root, Set<String> excludedDirectories, Set<String> excludedOutputDirectories) {
+            this.root = root;
+            this.excludedDirectories = excludedDirectories;
+            this.excludedOutputDirectories = excludedOutputDirectories;
+        }
+
+        Stream<Path> stream() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Iterator<>() {
+                private final Deque<Directory> directories = new ArrayDeque<>(singletonList(
+                        new Directory(root, emptyList())));
+
+                @Nullable
+                private Path next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && !directories.isEmpty()) {
+                        Directory directory = directories.peek();
+                        if (directory.files.hasNext()) {
+                            next = directory.files.next();
+                        } else {
+                            directories.pop();
+                            // pushed in reverse so subdirectories are walked in name order
+                            for (int i = directory.subdirectories.size() - 1; i >= 0; i--) {
+                                directories.push(new Directory(directory.subdirectories.get(i), directory.ignores));
                             }
-                            return Stream.empty();
                         }
-                    })
-                    .forEach(cu -> {
-                        Refactor<J.CompilationUnit, J> refactor = rewriteCheckstyle.apply(cu.refactor());
-
-                        Change<J.CompilationUnit> fixed = refactor.fix();
-                        if (!fixed.getRulesThatMadeChanges().isEmpty()) {
-                            fixed.getRulesThatMadeChanges().forEach(rule -> System.out.println("  " + rule));
-                            try {
-                                Files.writeString(new File(cu.getSourcePath()).toPath(), fixed.getFixed().print());
-                            } catch (IOException e) {
-                                throw new UncheckedIOException(e);
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Path next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Path n = next;
+                    next = null;
+                    return n;
+                }
+            }, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+        }
+
+        private class Directory {
+            final List<GitIgnore> ignores;
+            final Iterator<Path> files;
+            final List<Path> subdirectories = new ArrayList<>();
+
+            Directory(Path dir, List<GitIgnore> inheritedIgnores) {
+                List<GitIgnore> ignores = inheritedIgnores;
+                if (Files.isRegularFile(dir.resolve(".gitignore"))) {
+                    ignores = new ArrayList<>(inheritedIgnores);
+                    ignores.add(new GitIgnore(dir));
+                }
+                this.ignores = ignores;
+
+                List<Path> files = new ArrayList<>();
+                List<Path> directories = new ArrayList<>();
+                boolean moduleRoot = dir.equals(root);
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                            directories.add(entry);
+                        } else {
+                            moduleRoot |= BUILD_FILES.contains(entry.getFileName().toString());
+                            if (!isIgnored(entry, false)) {
+                                files.add(entry);
                             }
                         }
-                    });
-        } finally {
-            if (metricsClient != null) {
-                metricsClient.pushAndClose().block(Duration.ofSeconds(10));
+                    }
+                } catch (IOException ignored) {
+                    // an unreadable directory contributes no sources
+                }
+
+                for (Path directory : directories) {
+                    String name = directory.getFileName().toString();
+                    if (!excludedDirectories.contains(name) &&
+                            !(moduleRoot && excludedOutputDirectories.contains(name)) &&
+                            !isIgnored(directory, true)) {
+                        subdirectories.add(directory);
+                    }
+                }
+
+                Collections.sort(files);
+                Collections.sort(subdirectories);
+                this.files = files.iterator();
+            }
+
+            private boolean isIgnored(Path entry, boolean directory) {
+                for (GitIgnore ignore : ignores) {
+                    if (ignore.matches(entry, directory)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The patterns of one {@code .gitignore} file, translated to regular expressions rather than handed to
+     * {@link PathMatcher}, whose glob syntax gives {@code {}}, {@code [!]} and {@code \\} different meanings.
+     * A line that still can't be translated is skipped, so one bad pattern can't abort discovery.
+     */
+    private static class GitIgnore {
+        private final Path base;
+        private final List<Pattern> namePatterns = new ArrayList<>();
+        private final List<Pattern> anchoredPatterns = new ArrayList<>();
+        private final List<Pattern> directoryNamePatterns = new ArrayList<>();
+        private final List<Pattern> anchoredDirectoryPatterns = new ArrayList<>();
+
+        GitIgnore(Path base) {
+            this.base = base;
+
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(base.resolve(".gitignore"));
+            } catch (IOException e) {
+                lines = emptyList();
+            }
+
+            for (String pattern : lines) {
+                pattern = pattern.trim();
+                if (pattern.isEmpty() || pattern.startsWith("#") || pattern.startsWith("!")) {
+                    continue;
+                }
+
+                boolean directoryOnly = pattern.endsWith("/");
+                if (directoryOnly) {
+                    pattern = pattern.substring(0, pattern.length() - 1);
+                }
+
+                boolean anchored = pattern.contains("/");
+                if (pattern.startsWith("/")) {
+                    pattern = pattern.substring(1);
+                }
+                if (pattern.isEmpty()) {
+                    continue;
+                }
+
+                Pattern regex;
+                try {
+                    regex = Pattern.compile(regex(pattern));
+                } catch (PatternSyntaxException e) {
+                    continue;
+                }
+                if (anchored) {
+                    (directoryOnly ? anchoredDirectoryPatterns : anchoredPatterns).add(regex);
+                } else {
+                    (directoryOnly ? directoryNamePatterns : namePatterns).add(regex);
+                }
+            }
+        }
+
+        /**
+         * Translates a {@code .gitignore} pattern: {@code *} and {@code ?} don't match a {@code /}, {@code **}
+         * matches across directories, {@code [...]} is a character class that {@code !} negates, and {@code \\}
+         * escapes the character after it. Everything else is literal.
+         */
+        static String regex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '\\') {
+                    if (++i < glob.length()) {
+                        literal(regex, glob.charAt(i));
+                    }
+                } else if (c == '*') {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            // "**/" matches any number of directories, including none
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else if (c == '[') {
+                    int end = classEnd(glob, i);
+                    if (end < 0) {
+                        literal(regex, c);
+                    } else {
+                        regex.append('[');
+                        int j = i + 1;
+                        if (glob.charAt(j) == '!' || glob.charAt(j) == '^') {
+                            regex.append("^/");
+                            j++;
+                        }
+                        for (; j < end; j++) {
+                            char member = glob.charAt(j);
+                            if (member == '\\' && j + 1 < end) {
+                                member = glob.charAt(++j);
+                                regex.append('\\');
+                            } else if (member == '[' || member == ']' || member == '&' || member == '^' || member == '\\') {
+                                regex.append('\\');
+                            }
+                            regex.append(member);
+                        }
+                        regex.append(']');
+                        i = end;
+                    }
+                } else {
+                    literal(regex, c);
+                }
+            }
+            return regex.toString();
+        }
+
+        /**
+         * @return The index of the {@code ]} that closes the character class opened at {@code start}, or -1 if it
+         * isn't closed, in which case the {@code [} is literal. A {@code ]} straight after the opening bracket, or
+         * after its negation, is a member of the class.
+         */
+        private static int classEnd(String glob, int start) {
+            int i = start + 1;
+            if (i < glob.length() && (glob.charAt(i) == '!' || glob.charAt(i) == '^')) {
+                i++;
+            }
+            if (i < glob.length() && glob.charAt(i) == ']') {
+                i++;
+            }
+            for (; i < glob.length(); i++) {
+                if (glob.charAt(i) == '\\') {
+                    i++;
+                } else if (glob.charAt(i) == ']') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static void literal(StringBuilder regex, char c) {
+            if ("\\.[]{}()<>*+-=!?^$|".indexOf(c) >= 0) {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+
+        boolean matches(Path entry, boolean directory) {
+            String name = entry.getFileName().toString();
+            String relative = base.relativize(entry).toString().replace(File.separatorChar, '/');
+            return anyMatch(namePatterns, name) || anyMatch(anchoredPatterns, relative) ||
+                    (directory && (anyMatch(directoryNamePatterns, name) || anyMatch(anchoredDirectoryPatterns, relative)));
+        }
+
+        private static boolean anyMatch(List<Pattern> patterns, String path) {
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(path).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The state of one run over a source tree: the configuration, options and counters that the workers share
+     * while fixing batches of source files.
+     */
+    private static class Pipeline {
+        private final Path root;
+
+        /**
+         * Visitors hold cursor and andThen state while visiting, so each worker gets its own set.
+         */
+        private final ThreadLocal<RewriteCheckstyle> rewriteCheckstyle;
+
+        @Nullable
+        private final CleanFileCache cache;
+
+        private final boolean dryRun;
+
+        @Nullable
+        private final Duration fileTimeout;
+
+        @Nullable
+        private final Duration visitorTimeout;
+
+        private final int maxPasses;
+
+        private final AtomicLong filesWritten = new AtomicLong();
+        private final AtomicLong writesSkipped = new AtomicLong();
+
+        Pipeline(Path root, ThreadLocal<RewriteCheckstyle> rewriteCheckstyle, @Nullable CleanFileCache cache, boolean dryRun,
+                 @Nullable Duration fileTimeout, @Nullable Duration visitorTimeout, int maxPasses) {
+            this.root = root;
+            this.rewriteCheckstyle = rewriteCheckstyle;
+            this.cache = cache;
+            this.dryRun = dryRun;
+            this.fileTimeout = fileTimeout;
+            this.visitorTimeout = visitorTimeout;
+            this.maxPasses = maxPasses;
+        }
+
+        /**
+         * Parses, fixes and writes a batch of source files. Any failure is contained to the file that caused it and
+         * logged, so one bad source can't fail the rest of its batch or the rest of the run.
+         *
+         * @return The lines to print to the console for this batch.
+         */
+        BatchResult fix(List<Path> batch) {
+            List<Path> candidates = new ArrayList<>(batch.size());
+            for (Path javaSource : batch) {
+                if (mightNeedFixing(javaSource)) {
+                    candidates.add(javaSource);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return new BatchResult();
+            }
+
+            // each candidate is read once, and the same bytes key the cache and are compared against the fixed
+            // source, so a file edited while it is being fixed is never confused with what was parsed
+            Map<Path, Original> originals = new HashMap<>();
+            batch = new ArrayList<>(candidates.size());
+            for (Path javaSource : candidates) {
+                try {
+                    originals.put(javaSource.normalize(), new Original(javaSource));
+                    batch.add(javaSource);
+                } catch (IOException e) {
+                    logError(root.resolve("errors-parsing.log"), javaSource);
+                }
+            }
+            if (batch.isEmpty()) {
+                return new BatchResult();
+            }
+
+            Map<Path, String> cacheKeys = new HashMap<>();
+            if (cache != null) {
+                List<Path> unknown = new ArrayList<>(batch.size());
+                for (Path javaSource : batch) {
+                    String cacheKey = cache.key(relativePath(javaSource), originals.get(javaSource.normalize()).bytes);
+                    if (!cache.isClean(cacheKey)) {
+                        cacheKeys.put(javaSource.normalize(), cacheKey);
+                        unknown.add(javaSource);
+                    }
+                }
+                if (unknown.isEmpty()) {
+                    return new BatchResult();
+                }
+                batch = unknown;
+            }
+
+            List<J.CompilationUnit> cus;
+            JavaParser javaParser = javaParsers.get();
+            try {
+                cus = javaParser.parse(batch, root);
+                javaParser.reset();
+            } catch (Throwable t) {
+                // the compiler may be left in an inconsistent state, so the next parse on this thread gets a fresh parser
+                javaParsers.remove();
+
+                if (batch.size() > 1) {
+                    // retry each file on its own so that only the file that can't be parsed is dropped
+                    BatchResult result = new BatchResult();
+                    for (Path javaSource : batch) {
+                        result.addAll(fix(singletonList(javaSource)));
+                    }
+                    return result;
+                }
+
+                logError(root.resolve("errors-parsing.log"), batch.get(0));
+                return new BatchResult();
+            }
+
+            BatchResult result = new BatchResult();
+            for (J.CompilationUnit cu : cus) {
+                try {
+                    // visitors are kept from one run to the next in a daemon, and each run may set its own cap
+                    RewriteCheckstyle checkstyle = rewriteCheckstyle.get();
+                    checkstyle.setMaxPasses(maxPasses);
+                    Refactor<J.CompilationUnit, J> refactor = checkstyle.apply(cu.refactor());
+
+                    // a file that exceeds its time budget is left unchanged, even if some rules had already fixed it
+                    Change<J.CompilationUnit> fixed = fileTimeout == null || visitorTimeout == null ?
+                            refactor.fix() :
+                            VisitBudget.run(fileTimeout, visitorTimeout, refactor::fix);
+                    Set<String> rulesThatMadeChanges = checkstyle.getRulesThatMadeChanges(fixed);
+                    if (!rulesThatMadeChanges.isEmpty()) {
+                        rulesThatMadeChanges.forEach(rule -> result.messages.add("  " + rule));
+
+                        Path sourcePath = root.resolve(cu.getSourcePath());
+                        Original original = originals.get(sourcePath.normalize());
+                        if (original == null) {
+                            original = new Original(sourcePath);
+                        }
+                        if (dryRun) {
+                            diffIfChanged(sourcePath, original, fixed.getFixed().print()).ifPresent(result.diffs::add);
+                            continue;
+                        }
+
+                        // fix() runs a bounded number of cycles, so what was just written isn't known to be clean
+                        // until a later run finds nothing more to fix in it
+                        if (!writeIfChanged(sourcePath, original, fixed.getFixed().print())) {
+                            result.messages.add("  Skipped " + cu.getSourcePath() + ": it changed while it was being fixed");
+                        }
+                    } else if (cache != null && checkstyle.isConverged()) {
+                        String cacheKey = cacheKeys.get(root.resolve(cu.getSourcePath()).normalize());
+                        if (cacheKey != null) {
+                            cache.markClean(cacheKey);
+                        }
+                    }
+                } catch (VisitBudget.VisitTimeoutException e) {
+                    result.messages.add("  Skipped " + cu.getSourcePath() + ": " + e.getMessage());
+                    logSlowFile(root.resolve("slow-files.log"), Path.of(cu.getSourcePath()), e);
+                } catch (Throwable t) {
+                    logError(root.resolve("errors-fixing.log"), Path.of(cu.getSourcePath()));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return The path of a source file relative to the root, with forward slashes on every platform, so that
+         * the same file in the same checkout always has the same cache key.
+         */
+        private String relativePath(Path javaSource) {
+            Path absoluteRoot = root.toAbsolutePath().normalize();
+            return absoluteRoot.relativize(javaSource.toAbsolutePath().normalize()).toString()
+                    .replace(File.separatorChar, '/');
+        }
+
+        /**
+         * Scans the raw bytes of a source file for the text that the enabled rules need in order to have anything
+         * to fix, so that files without it are neither parsed nor visited.
+         */
+        private boolean mightNeedFixing(Path javaSource) {
+            try (FileChannel channel = FileChannel.open(javaSource, StandardOpenOption.READ)) {
+                return rewriteCheckstyle.get().mightApplyTo(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                // leave it to the parser to report a file that can't be read
+                return true;
             }
         }
+
+        /**
+         * Writes a fixed source file in the charset, byte order mark and line endings of the original, but only if
+         * the result differs from the original bytes. Leaving identical files untouched keeps IDE indexes and build
+         * tool up-to-date checks valid. The new content is written to a temporary file in the same directory, with
+         * the original's permissions, and renamed over the original, so readers never observe a partially written
+         * file.
+         *
+         * @param originalSource The file as it was read before it was parsed.
+         * @return {@code false} if the file was modified after it was read, in which case it is left alone rather
+         * than overwritten with a fix of content that is no longer there.
+         */
+        private boolean writeIfChanged(Path sourcePath, Original originalSource, String printed) throws IOException {
+            byte[] original = originalSource.bytes;
+            byte[] output = encode(original, printed);
+            if (Arrays.equals(original, output)) {
+                writesSkipped.incrementAndGet();
+                return true;
+            }
+
+            if (!originalSource.isUnchanged(sourcePath)) {
+                return false;
+            }
+
+            Path temp = Files.createTempFile(sourcePath.toAbsolutePath().getParent(), ".rewrite-checkstyle", ".tmp");
+            try {
+                copyPermissions(sourcePath, temp);
+                Files.write(temp, output);
+                try {
+                    Files.move(temp, sourcePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, sourcePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            filesWritten.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * A dry run diffs exactly the bytes that {@link #writeIfChanged(Path, Original, String)} would write, so
+         * that a file whose only difference is its line endings, byte order mark or charset produces no diff, and a
+         * file with CRLF line endings produces a diff of the lines that changed rather than of the whole file.
+         *
+         * @return A unified diff, or nothing if the fixed source is identical to the original.
+         */
+        private Optional<String> diffIfChanged(Path sourcePath, Original originalSource, String printed) throws IOException {
+            byte[] original = originalSource.bytes;
+            byte[] output = encode(original, printed);
+            if (Arrays.equals(original, output)) {
+                writesSkipped.incrementAndGet();
+                return Optional.empty();
+            }
+
+            RawText before = new RawText(original);
+            RawText after = new RawText(output);
+            EditList edits = new HistogramDiff().diff(RawTextComparator.DEFAULT, before, after);
+
+            String path = relativePath(sourcePath);
+            ByteArrayOutputStream diff = new ByteArrayOutputStream();
+            diff.write(("diff --git a/" + path + " b/" + path + "\n--- a/" + path + "\n+++ b/" + path + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            try (DiffFormatter formatter = new DiffFormatter(diff)) {
+                formatter.format(edits, before, after);
+            }
+
+            filesWritten.incrementAndGet();
+            return Optional.of(new String(diff.toByteArray(), charset(original)));
+        }
+
+        /**
+         * Encodes a fixed source in the charset, byte order mark and line endings of the original.
+         */
+        private byte[] encode(byte[] original, String printed) throws IOException {
+            boolean utf8Bom = original.length >= 3 &&
+                    (original[0] & 0xFF) == 0xEF && (original[1] & 0xFF) == 0xBB && (original[2] & 0xFF) == 0xBF;
+            Charset charset = charset(original);
+
+            String fixed = printed;
+            if (utf8Bom && fixed.startsWith("\uFEFF")) {
+                fixed = fixed.substring(1);
+            }
+            // a file with mixed line endings keeps whatever ending each printed line already has
+            if (isUniformlyCrlf(new String(original, charset))) {
+                fixed = fixed.replaceAll("\r?\n", "\r\n");
+            }
+
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream(original.length + 64);
+            if (utf8Bom) {
+                encoded.write(original, 0, 3);
+            }
+            encoded.write(fixed.getBytes(charset));
+            return encoded.toByteArray();
+        }
+
+        private Charset charset(byte[] original) {
+            boolean utf8Bom = original.length >= 3 &&
+                    (original[0] & 0xFF) == 0xEF && (original[1] & 0xFF) == 0xBB && (original[2] & 0xFF) == 0xBF;
+            return utf8Bom || isUtf8(original) ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+        }
+
+        /**
+         * A temporary file is created readable and writable only by its owner, so the original's permissions, and
+         * its owner and group where this process may set them, are carried over before it replaces the original.
+         */
+        private void copyPermissions(Path from, Path to) throws IOException {
+            PosixFileAttributeView fromView = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+            PosixFileAttributeView toView = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+            if (fromView == null || toView == null) {
+                return;
+            }
+
+            PosixFileAttributes attributes = fromView.readAttributes();
+            toView.setPermissions(attributes.permissions());
+            try {
+                toView.setGroup(attributes.group());
+                toView.setOwner(attributes.owner());
+            } catch (IOException ignored) {
+                // only a privileged user can give a file away, and the permissions matter more than the owner
+            }
+        }
+
+        private boolean isUniformlyCrlf(String original) {
+            boolean crlf = false;
+            for (int i = original.indexOf('\n'); i >= 0; i = original.indexOf('\n', i + 1)) {
+                if (i == 0 || original.charAt(i - 1) != '\r') {
+                    return false;
+                }
+                crlf = true;
+            }
+            return crlf;
+        }
+    }
+
+    /**
+     * The bytes of a source file as they were read before it was parsed, and its size and modification time at
+     * that point, which reveal an edit made while it was being fixed without reading it a second time.
+     */
+    private static class Original {
+        final byte[] bytes;
+        final FileTime lastModified;
+
+        Original(Path sourcePath) throws IOException {
+            this.lastModified = Files.getLastModifiedTime(sourcePath);
+            this.bytes = Files.readAllBytes(sourcePath);
+        }
+
+        boolean isUnchanged(Path sourcePath) throws IOException {
+            return Files.size(sourcePath) == bytes.length && Files.getLastModifiedTime(sourcePath).equals(lastModified);
+        }
+    }
+
+    private static class BatchResult {
+        final List<String> messages = new ArrayList<>();
+        final List<String> diffs = new ArrayList<>();
+
+        void addAll(BatchResult other) {
+            messages.addAll(other.messages);
+            diffs.addAll(other.diffs);
+        }
+    }
+
+    private static void printResult(Future<BatchResult> result, PrintStream out, Writer diffs) throws IOException {
+        try {
+            BatchResult batchResult = result.get();
+            batchResult.messages.forEach(out::println);
+            for (String diff : batchResult.diffs) {
+                diffs.write(diff);
+            }
+            diffs.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a source file to be fixed");
+        } catch (ExecutionException e) {
+            // fix(..) contains its own failures, so this would be a bug in the pipeline itself
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static boolean isUtf8(byte[] bytes) {
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A persistent record of source files that no rule changed, keyed by a hash of the file's path relative to the
+     * root and its content, the Checkstyle configuration (including its suppressions file), and the version of
+     * this tool. The path is part of the key because suppressions match files by their path. Any change to
+     * one of those produces a different key, so stale entries are never consulted.
+     * <p>
+     * Each entry is an empty marker file that is created by an atomic move, so concurrent runs sharing a cache
+     * directory never see a partially written entry.
+     */
+    private static class CleanFileCache {
+        private final Path directory;
+        private final byte[] fingerprint;
+
+        /**
+         * @param suppressionsFile The suppressions file as the loaded configuration resolved it.
+         */
+        CleanFileCache(Path directory, byte[] config, @Nullable File suppressionsFile) throws IOException {
+            this.directory = directory;
+            Files.createDirectories(directory);
+
+            MessageDigest digest = sha256();
+            digest.update(config);
+            if (suppressionsFile != null && suppressionsFile.isFile()) {
+                digest.update(Files.readAllBytes(suppressionsFile.toPath()));
+            }
+
+            String version = Main.class.getPackage().getImplementationVersion();
+            digest.update((version == null ? "dev" : version).getBytes(StandardCharsets.UTF_8));
+
+            this.fingerprint = digest.digest();
+        }
+
+        /**
+         * @param relativePath The normalized path of the source file relative to the root.
+         */
+        String key(String relativePath, byte[] source) {
+            MessageDigest digest = sha256();
+            digest.update(fingerprint);
+            digest.update((relativePath + "\0").getBytes(StandardCharsets.UTF_8));
+            digest.update(source);
+            return hex(digest.digest());
+        }
+
+        boolean isClean(String key) {
+            return Files.exists(entry(key));
+        }
+
+        void markClean(String key) throws IOException {
+            Path entry = entry(key);
+            if (Files.exists(entry)) {
+                return;
+            }
+
+            Files.createDirectories(entry.getParent());
+            Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException ignored) {
+                // another run marked the same content clean first
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private Path entry(String key) {
+            return directory.resolve(key.substring(0, 2)).resolve(key);
+        }
+
+        static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static synchronized void logError(Path log, Path javaSource) {
+        try {
+            Files.writeString(log, javaSource.toString() + System.lineSeparator(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static synchronized void logSlowFile(Path log, Path javaSource, VisitBudget.VisitTimeoutException e) {
+        try {
+            Files.writeString(log, javaSource.toString() + "\t" + e.getVisitor() + "\t" +
+                            e.getElapsed().toMillis() + "ms" + System.lineSeparator(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ignored) {
+        }
     }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaRefactorVisitor;
+import org.openrewrite.java.tree.J;
+
+/**
+ * A helper visitor that a {@link CheckstyleRefactorVisitor} schedules with {@code andThen}. It checks the
+ * {@link VisitBudget} of the file being fixed as it descends, just as the visitor that scheduled it does, and its
+ * time counts towards that visitor's budget.
+ */
+abstract class BudgetedRefactorVisitor extends JavaRefactorVisitor {
+    @Override
+    public J visit(@Nullable Tree tree) {
+        VisitBudget.check();
+        return super.visit(tree);
+    }
+}
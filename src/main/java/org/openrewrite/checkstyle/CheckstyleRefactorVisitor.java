@@ -17,9 +17,12 @@ package org.openrewrite.checkstyle;
 
 import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
 import com.puppycrawl.tools.checkstyle.api.*;
-import com.puppycrawl.tools.checkstyle.filters.SuppressionsLoader;
+import io.micrometer.core.instrument.Metrics;
+import org.openrewrite.Cursor;
+import org.openrewrite.Tree;
 import org.openrewrite.Validated;
 import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaFormatter;
 import org.openrewrite.java.JavaRefactorVisitor;
 import org.openrewrite.java.tree.J;
 import org.xml.sax.InputSource;
@@ -28,26 +31,46 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.stream;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
 
 public abstract class CheckstyleRefactorVisitor extends JavaRefactorVisitor {
-    // we just want to re-use the suppression filtering logic in Checkstyle without emitting messages
-    private static final LocalizedMessage localizedMessageThatDoesntMatter = new LocalizedMessage(1,
-            "bundle", "key", new String[0], null, CheckstyleRefactorVisitor.class, null);
+    private static final int MAX_LOADED_CONFIGURATIONS = 32;
+    public static final int DEFAULT_MAX_PASSES = 10;
 
-    private static final Map<File, LoadedConfiguration> loadedConfigurationsByPath = new HashMap<>();
+    /**
+     * Loaded configurations by the identity of their source, least recently used first. Build tools and daemons
+     * keep visitors alive for many runs, so the cache is bounded and a configuration file that changes on disk gets
+     * a new key rather than a stale hit. The suppressions file is only known once the configuration is parsed, so
+     * an entry whose suppressions file has changed since is found under its key, and replaced.
+     * <p>
+     * Lookups are counted as {@code rewrite.checkstyle.configuration.cache}, tagged with a {@code result} of
+     * {@code hit} or {@code miss}.
+     */
+    private static final Map<ConfigurationKey, LoadedConfiguration> loadedConfigurations =
+            new LinkedHashMap<ConfigurationKey, LoadedConfiguration>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ConfigurationKey, LoadedConfiguration> eldest) {
+                    return size() > MAX_LOADED_CONFIGURATIONS;
+                }
+            };
+
+    private static final AtomicLong configurationCacheHits = new AtomicLong();
+    private static final AtomicLong configurationCacheMisses = new AtomicLong();
 
     /**
-     * Used, especially by build tools, to relativize {@link #configFile} against some
-     * root directory. This is optional, and {@link #configFile} can itself be an absolute
-     * or resolvable relative path independent of this.
+     * Used, especially by build tools, to relativize {@link #configFile}, and the suppressions
+     * file it refers to, against some root directory. This is optional, and {@link #configFile}
+     * can itself be an absolute or resolvable relative path independent of this.
      */
     @Nullable
     private Path baseDir;
@@ -55,27 +78,321 @@ public abstract class CheckstyleRefactorVisitor extends JavaRefactorVisitor {
     private File configFile;
     private String config;
     private Map<String, Object> properties;
-    private FilterSet suppressions = new FilterSet();
+    private Suppressions suppressions = Suppressions.NONE;
+
+    @Nullable
+    private String moduleId;
+
+    /**
+     * The lines of the compilation unit being visited on which this check is suppressed, if any.
+     */
+    @Nullable
+    private Suppressions.LineRanges suppressedLines;
+
+    @Nullable
+    private Map<UUID, int[]> nodeLines;
+
+    /**
+     * The lines of the nodes of the compilation unit as it was parsed, when they are indexed by whatever runs this
+     * visitor, so that they are right even after other visitors have added or removed lines.
+     */
+    @Nullable
+    private Supplier<Map<UUID, int[]>> originalNodeLines;
+
+    /**
+     * A configuration already loaded by {@link RewriteCheckstyle}, which takes precedence over
+     * {@link #config} and {@link #configFile}.
+     */
+    @Nullable
+    private LoadedConfiguration loadedConfiguration;
+
+    /**
+     * When set, a visitor configured from {@link #configFile} reconfigures itself from the latest version of that
+     * file, and of its suppressions file, when it begins visiting the next compilation unit. Every visitor of one
+     * compilation unit uses the same version, which is reloaded in the background by
+     * {@link ReloadableConfiguration}. Visitors built by {@link RewriteCheckstyle} are reloaded by it instead.
+     */
+    private boolean reloadOnChange;
+
+    /**
+     * Set when the configuration was reloaded and no longer configures this visitor, for example because its
+     * module was removed, so that it fixes nothing until the file changes again.
+     */
+    private boolean reloadFailed;
+
+    @Nullable
+    private ReloadableConfiguration reloadable;
+
+    /**
+     * The version of {@link #reloadable} that this visitor is configured from.
+     */
+    @Nullable
+    private LoadedConfiguration reloadedFrom;
+
+    /**
+     * The bits of the kinds in {@link #getNodeKinds()}, once they have been computed.
+     */
+    @Nullable
+    private Long nodeKinds;
+
+    /**
+     * The node kinds in each subtree of the compilation unit being visited, when this visitor declares the kinds
+     * it fixes.
+     */
+    @Nullable
+    private Map<Tree, Long> nodeKindSummaries;
+
+    private int maxPasses = DEFAULT_MAX_PASSES;
+
+    /**
+     * Which pass over the compilation unit this is, counting from 1, for a visitor that reschedules itself with
+     * {@link #convergeChanges(J.CompilationUnit, J.CompilationUnit, Supplier)}.
+     */
+    private int pass = 1;
+
+    /**
+     * The ids of the trees that this pass visits, being those on the path to a change made by the previous pass,
+     * or {@code null} if this is the first pass and it visits every tree.
+     */
+    @Nullable
+    private Set<UUID> passScope;
+
+    /**
+     * The ids of the trees on the path to each change made in this pass, down to the tree that replaced the
+     * changed one.
+     */
+    private Set<UUID> changedTrees = new HashSet<>();
+
+    /**
+     * Whether the compilation unit last visited was still changing when the maximum number of passes was reached,
+     * shared by every pass over it.
+     */
+    private AtomicBoolean passesExhausted = new AtomicBoolean();
+
+    /**
+     * The visitor that is running this one as one of its delegates, in the compilation unit being visited.
+     */
+    @Nullable
+    private FusedVisitor fusedBy;
+
+    @Override
+    public J visit(@Nullable Tree tree) {
+        VisitBudget.check();
+        if (tree != null && (isSuppressed(tree) || !mayFix(tree) ||
+                (passScope != null && !passScope.contains(tree.getId())))) {
+            return (J) tree;
+        }
+        return super.visit(tree);
+    }
 
     @Override
     public J visitCompilationUnit(J.CompilationUnit cu) {
-        if (suppressions.accept(new AuditEvent("does not matter", cu.getSourcePath(), localizedMessageThatDoesntMatter))) {
-            return super.visitCompilationUnit(cu);
+        VisitBudget.enter(getClass().getSimpleName());
+        fusedBy = null;
+        return beginVisit(cu) ? super.visitCompilationUnit(cu) : cu;
+    }
+
+    /**
+     * Begins a visit by a {@link FusedVisitor}, which doesn't call {@link #visitCompilationUnit(J.CompilationUnit)}
+     * on its delegates, and whose cursor stands in for this visitor's own.
+     */
+    boolean beginFusedVisit(J.CompilationUnit cu, FusedVisitor fused) {
+        fusedBy = fused;
+        formatter = new JavaFormatter(cu);
+        return beginVisit(cu);
+    }
+
+    /**
+     * @return The cursor of the {@link FusedVisitor} running this visitor, if any, which points at the node passed
+     * to {@link FusibleVisitor#visitFused(J)} as it was before its children were visited.
+     */
+    @Override
+    public Cursor getCursor() {
+        FusedVisitor fused = fusedBy;
+        return fused == null ? super.getCursor() : fused.getFusedCursor();
+    }
+
+    /**
+     * Reconfigures this visitor if its configuration has changed, and finds the lines on which it is suppressed in
+     * the compilation unit about to be visited, whether by this visitor itself or by a {@link FusedVisitor}.
+     *
+     * @return {@code false} if this check is suppressed for the whole compilation unit, or a reloaded configuration
+     * no longer configures it.
+     */
+    boolean beginVisit(J.CompilationUnit cu) {
+        if (pass == 1) {
+            passesExhausted.set(false);
+        }
+        if (reloadable != null) {
+            LoadedConfiguration pinned = reloadable.pin(cu);
+            if (pinned != reloadedFrom) {
+                reloadedFrom = pinned;
+                reloadFailed = pinned == null || !configureFrom(pinned).isValid();
+            }
+            if (reloadFailed) {
+                return false;
+            }
+        }
+        suppressedLines = suppressions.suppressed(cu.getSourcePath(), getClass().getSimpleName(), moduleId);
+        if (suppressedLines == Suppressions.LineRanges.ALL) {
+            return false;
+        }
+        nodeLines = suppressedLines == null ? null :
+                originalNodeLines == null ? Suppressions.nodeLines(cu) : originalNodeLines.get();
+
+        nodeKindSummaries = nodeKinds() == NodeKinds.ALL ? null : NodeKinds.shared().summarize(cu);
+        changedTrees = new HashSet<>();
+        return mayFix(cu);
+    }
+
+    /**
+     * Records that the tree at the cursor is being replaced by {@code result}, so that the next pass scheduled by
+     * {@link #convergeChanges(J.CompilationUnit, J.CompilationUnit, Supplier)} revisits it and its ancestors. Only
+     * visitors with cursoring on can record changes.
+     *
+     * @return {@code result}, for convenience.
+     */
+    protected <T extends J> T changed(T result) {
+        changedTrees.add(result.getId());
+        for (Cursor cursor = getCursor(); cursor != null; cursor = cursor.getParent()) {
+            changedTrees.add(cursor.getTree().getId());
+        }
+        return result;
+    }
+
+    /**
+     * For a visitor whose changes can make further changes possible, schedules another pass over just the trees
+     * recorded with {@link #changed(J)}, until a pass leaves the compilation unit as it was or the maximum number
+     * of passes is reached. A visitor's decisions must depend only on the subtree it is looking at, since subtrees
+     * that a pass didn't change are not visited again.
+     * <p>
+     * The number of passes each compilation unit took is recorded as the {@code rewrite.checkstyle.passes}
+     * distribution, and compilation units still changing at the last pass are counted as
+     * {@code rewrite.checkstyle.passes.exhausted}, both tagged with the name of the check.
+     *
+     * @param before   The compilation unit as this pass found it.
+     * @param after    The compilation unit as this pass left it.
+     * @param nextPass A new, unconfigured instance of this visitor.
+     */
+    protected void convergeChanges(J.CompilationUnit before, J.CompilationUnit after,
+                                   Supplier<? extends CheckstyleRefactorVisitor> nextPass) {
+        if (after == before || changedTrees.isEmpty()) {
+            Metrics.summary("rewrite.checkstyle.passes", "check", getClass().getSimpleName()).record(pass);
+        } else if (pass >= maxPasses) {
+            Metrics.summary("rewrite.checkstyle.passes", "check", getClass().getSimpleName()).record(pass);
+            Metrics.counter("rewrite.checkstyle.passes.exhausted", "check", getClass().getSimpleName()).increment();
+            passesExhausted.set(true);
+        } else {
+            CheckstyleRefactorVisitor next = nextPass.get();
+            next.suppressions = suppressions;
+            next.moduleId = moduleId;
+            // later passes see this pass's changes, so they use the lines that this pass was given
+            Map<UUID, int[]> lines = nodeLines;
+            next.originalNodeLines = originalNodeLines == null ? () -> lines : originalNodeLines;
+            next.maxPasses = maxPasses;
+            next.pass = pass + 1;
+            next.passScope = changedTrees;
+            next.passesExhausted = passesExhausted;
+            andThen(next);
+        }
+    }
+
+    /**
+     * @return {@code true} if the compilation unit this visitor last visited was still changing at its last pass,
+     * and so may not yet be fully fixed.
+     */
+    boolean isPassesExhausted() {
+        return passesExhausted.get();
+    }
+
+    /**
+     * @return The kinds of node that this visitor fixes, or {@code null} if it may fix any kind. A visitor that
+     * declares its kinds skips every subtree that contains none of them, so it must only override the
+     * {@code visit} methods of these kinds.
+     */
+    @Nullable
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return null;
+    }
+
+    /**
+     * @return Text that a source file must contain all of for this visitor to have anything to fix in it, so that
+     * files without it needn't be parsed. This must be conservative. An empty list means any file may need fixing.
+     */
+    protected List<String> getRequiredText() {
+        return Collections.emptyList();
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    protected static Set<Class<? extends J>> nodeKinds(Class<? extends J>... kinds) {
+        return new HashSet<>(Arrays.asList(kinds));
+    }
+
+    long nodeKinds() {
+        if (nodeKinds == null) {
+            nodeKinds = NodeKinds.shared().of(getNodeKinds());
         }
-        return cu;
+        return nodeKinds;
+    }
+
+    /**
+     * @return {@code false} if the tree is known to contain no node of a kind that this visitor fixes.
+     */
+    boolean mayFix(Tree tree) {
+        return NodeKinds.mayContain(nodeKindSummaries, tree, nodeKinds());
+    }
+
+    /**
+     * @param originalNodeLines The lines of the nodes of the compilation unit as it was parsed, used to match
+     *                          suppressions in place of the lines of the compilation unit this visitor is given,
+     *                          which may already have been changed. Without them, a visitor used on its own indexes
+     *                          the compilation unit it is given.
+     */
+    void setOriginalNodeLines(@Nullable Supplier<Map<UUID, int[]>> originalNodeLines) {
+        this.originalNodeLines = originalNodeLines;
+    }
+
+    /**
+     * @return {@code true} if the tree lies entirely on lines of the current compilation unit where this check
+     * is suppressed.
+     */
+    boolean isSuppressed(Tree tree) {
+        if (nodeLines != null && suppressedLines != null) {
+            int[] lines = nodeLines.get(tree.getId());
+            return lines != null && suppressedLines.covers(lines[0], lines[1]);
+        }
+        return false;
     }
 
     public void setConfig(String config) {
         this.config = config;
+        this.loadedConfiguration = null;
+        this.reloadFailed = false;
         validate();
     }
 
+    public void setReloadOnChange(boolean reloadOnChange) {
+        this.reloadOnChange = reloadOnChange;
+        validate();
+    }
+
+    /**
+     * @param maxPasses The most passes over a compilation unit that a visitor which can make further changes
+     *                  possible will make, including the first.
+     */
+    public void setMaxPasses(int maxPasses) {
+        this.maxPasses = Math.max(1, maxPasses);
+    }
+
     public void setBaseDir(@Nullable Path baseDir) {
         this.baseDir = baseDir;
     }
 
     public void setConfigFile(File configFile) {
         this.configFile = configFile;
+        this.loadedConfiguration = null;
+        this.reloadFailed = false;
         validate();
     }
 
@@ -90,66 +407,118 @@ public abstract class CheckstyleRefactorVisitor extends JavaRefactorVisitor {
     @Override
     public final Validated validate() {
         try {
-            LoadedConfiguration loadedConfiguration = null;
-            if (configFile != null) {
-                File absoluteConfigFile = baseDir == null ? configFile :
-                        baseDir.resolve(configFile.toPath()).toFile();
-
-                if(absoluteConfigFile.exists()) {
-                    loadedConfiguration = loadedConfigurationsByPath.get(absoluteConfigFile);
-                    if (loadedConfiguration == null) {
-                        try (InputStream inputStream = new FileInputStream(absoluteConfigFile)) {
-                            loadedConfiguration = loadConfiguration(inputStream);
-                            loadedConfigurationsByPath.put(absoluteConfigFile, loadedConfiguration);
-                        }
+            LoadedConfiguration loadedConfiguration = this.loadedConfiguration;
+            if (loadedConfiguration == null) {
+                ConfigurationKey key = null;
+                if (configFile != null) {
+                    File absoluteConfigFile = baseDir == null ? configFile :
+                            baseDir.resolve(configFile.toPath()).toFile();
+
+                    if (absoluteConfigFile.exists()) {
+                        key = new ConfigurationKey(absoluteConfigFile, null, properties, baseDir);
                     }
                 }
-            }
 
-            if(loadedConfiguration == null) {
-                if (config != null) {
-                    try (InputStream inputStream = new ByteArrayInputStream(config.getBytes(Charset.defaultCharset()))) {
-                        loadedConfiguration = loadConfiguration(inputStream);
+                if (key == null) {
+                    if (config != null) {
+                        key = new ConfigurationKey(null, config, properties, baseDir);
+                    } else {
+                        return Validated.missing("config", null,
+                                "Either config or configFile must be specified");
                     }
-                } else {
-                    return Validated.missing("config", null,
-                            "Either config or configFile must be specified");
                 }
-            }
 
-            Module module = loadedConfiguration.modulesByName.get(getClass().getSimpleName());
-            if (module == null) {
-                return Validated.missing("config", null,
-                        "No matching module found in the checkstyle configuration");
-            }
+                synchronized (loadedConfigurations) {
+                    loadedConfiguration = loadedConfigurations.get(key);
+                }
+                if (loadedConfiguration != null && loadedConfiguration.suppressions.isStale()) {
+                    loadedConfiguration = null;
+                }
 
-            this.suppressions = loadedConfiguration.suppressions;
+                if (loadedConfiguration == null) {
+                    configurationCacheMisses.incrementAndGet();
+                    Metrics.counter("rewrite.checkstyle.configuration.cache", "result", "miss").increment();
+                    try (InputStream inputStream = key.file == null ?
+                            new ByteArrayInputStream(config.getBytes(Charset.defaultCharset())) :
+                            new FileInputStream(key.file)) {
+                        loadedConfiguration = loadConfiguration(inputStream, properties, baseDir);
+                    }
+                    synchronized (loadedConfigurations) {
+                        loadedConfigurations.put(key, loadedConfiguration);
+                    }
+                } else {
+                    configurationCacheHits.incrementAndGet();
+                    Metrics.counter("rewrite.checkstyle.configuration.cache", "result", "hit").increment();
+                }
 
-            configure(module);
+                reloadable = null;
+                reloadedFrom = null;
+                if (reloadOnChange && key.file != null) {
+                    reloadable = ReloadableConfiguration.of(key.file, properties, baseDir, loadedConfiguration);
+                    // another visitor of the same file may already have reloaded a newer version
+                    LoadedConfiguration current = reloadable.current();
+                    if (current != null) {
+                        loadedConfiguration = current;
+                    }
+                    reloadedFrom = loadedConfiguration;
+                }
+            }
 
-            return Validated.valid("config", this);
+            Validated validated = configureFrom(loadedConfiguration);
+            if (reloadable != null) {
+                reloadFailed = !validated.isValid();
+            }
+            return validated;
         } catch (IOException | CheckstyleException e) {
             return Validated.invalid("config", config == null ? configFile.getPath() : config,
                     "Checkstyle configuration could not be loaded", e);
         }
     }
 
-    private LoadedConfiguration loadConfiguration(InputStream inputStream) throws CheckstyleException {
+    private Validated configureFrom(LoadedConfiguration loadedConfiguration) {
+        Module module = loadedConfiguration.modulesByName.get(getClass().getSimpleName());
+        if (module == null) {
+            return Validated.missing("config", null,
+                    "No matching module found in the checkstyle configuration");
+        }
+
+        this.suppressions = loadedConfiguration.suppressions;
+        this.moduleId = module.getId();
+
+        configure(module);
+
+        return Validated.valid("config", this);
+    }
+
+    /**
+     * Configures this visitor from a configuration that has already been loaded, rather than loading it again.
+     */
+    Validated configure(LoadedConfiguration loadedConfiguration) {
+        this.loadedConfiguration = loadedConfiguration;
+        return validate();
+    }
+
+    /**
+     * @param baseDir The directory against which a relative suppressions file is resolved, or {@code null} for the
+     *                working directory of this process.
+     */
+    static LoadedConfiguration loadConfiguration(InputStream inputStream, @Nullable Map<String, Object> properties,
+                                                 @Nullable Path baseDir) throws CheckstyleException {
         Configuration checkstyleConfig = ConfigurationLoader.loadConfiguration(new InputSource(inputStream),
                 name -> {
-                    Object prop = properties.get(name);
+                    Object prop = properties == null ? null : properties.get(name);
                     return prop == null ?
                             name.equals("config_loc") ? "config/checkstyle" : null :
                             prop.toString();
                 },
                 ConfigurationLoader.IgnoredModulesOptions.OMIT);
 
-        FilterSet suppressions = new FilterSet();
+        Suppressions suppressions = Suppressions.NONE;
         for (Configuration firstLevelChild : checkstyleConfig.getChildren()) {
             if ("SuppressionFilter".equals(firstLevelChild.getName())) {
                 for (String attributeName : firstLevelChild.getAttributeNames()) {
                     if ("file".equals(attributeName)) {
-                        suppressions = SuppressionsLoader.loadSuppressions(firstLevelChild.getAttribute("file"));
+                        suppressions = Suppressions.load(firstLevelChild.getAttribute("file"), baseDir);
                     }
                 }
             }
@@ -161,11 +530,11 @@ public abstract class CheckstyleRefactorVisitor extends JavaRefactorVisitor {
                 modules.addAll(stream(firstLevelChild.getChildren())
                         .map(child -> {
                             try {
-                                Map<String, String> properties = new HashMap<>();
+                                Map<String, String> moduleProperties = new HashMap<>();
                                 for (String propertyName : child.getAttributeNames()) {
-                                    properties.put(propertyName, child.getAttribute(propertyName));
+                                    moduleProperties.put(propertyName, child.getAttribute(propertyName));
                                 }
-                                return new Module(child.getName(), properties);
+                                return new Module(child.getName(), moduleProperties);
                             } catch (CheckstyleException e) {
                                 return null;
                             }
@@ -179,19 +548,87 @@ public abstract class CheckstyleRefactorVisitor extends JavaRefactorVisitor {
         return new LoadedConfiguration(modules, suppressions);
     }
 
-    private static class LoadedConfiguration {
-        private final Map<String, Module> modulesByName;
-        private final FilterSet suppressions;
+    static long getConfigurationCacheHits() {
+        return configurationCacheHits.get();
+    }
+
+    static long getConfigurationCacheMisses() {
+        return configurationCacheMisses.get();
+    }
+
+    /**
+     * Identifies a configuration by its file's path, modification time and size, or by the text of an inline
+     * configuration, together with the properties and base directory used to resolve it. Changes to the
+     * suppressions file it refers to are detected by {@link Suppressions#isStale()} instead.
+     */
+    private static class ConfigurationKey {
+        @Nullable
+        private final File file;
+
+        @Nullable
+        private final String config;
+
+        private final long lastModified;
+        private final long length;
+        private final Map<String, String> properties;
+
+        @Nullable
+        private final Path baseDir;
+
+        ConfigurationKey(@Nullable File file, @Nullable String config, @Nullable Map<String, Object> properties,
+                         @Nullable Path baseDir) {
+            this.file = file;
+            this.baseDir = baseDir;
+            this.config = config;
+            this.lastModified = file == null ? 0 : file.lastModified();
+            this.length = file == null ? 0 : file.length();
+
+            Map<String, String> resolvedProperties = new HashMap<>();
+            if (properties != null) {
+                properties.forEach((name, value) -> resolvedProperties.put(name, value == null ? null : value.toString()));
+            }
+            this.properties = resolvedProperties;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConfigurationKey that = (ConfigurationKey) o;
+            return lastModified == that.lastModified &&
+                    length == that.length &&
+                    Objects.equals(file, that.file) &&
+                    Objects.equals(config, that.config) &&
+                    properties.equals(that.properties) &&
+                    Objects.equals(baseDir, that.baseDir);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, config, lastModified, length, properties, baseDir);
+        }
+    }
+
+    static class LoadedConfiguration {
+        final Map<String, Module> modulesByName;
+        final Suppressions suppressions;
 
-        public LoadedConfiguration(Collection<Module> modules, FilterSet suppressions) {
+        public LoadedConfiguration(Collection<Module> modules, Suppressions suppressions) {
             this.modulesByName = modules.stream().collect(toMap(Module::getName, identity()));
             this.suppressions = suppressions;
         }
     }
 
+    /**
+     * The properties of one module in a configuration. Visitors built from the same loaded configuration share a
+     * module, so patterns, token sets and options are parsed the first time they are asked for and then remembered.
+     */
     protected static class Module {
+        private static final Object ABSENT = new Object();
+
         private final String name;
         private final Map<String, String> properties;
+        private final Map<String, Object> parsed = new ConcurrentHashMap<>();
 
         public Module(String name, Map<String, String> properties) {
             this.name = name;
@@ -202,51 +639,75 @@ public abstract class CheckstyleRefactorVisitor extends JavaRefactorVisitor {
             return name;
         }
 
+        @Nullable
+        public String getId() {
+            return properties.get("id");
+        }
+
+        Map<String, String> getProperties() {
+            return properties;
+        }
+
         public boolean prop(String key, boolean defaultValue) {
-            return properties.containsKey(key) ? Boolean.parseBoolean(properties.get(key))
-                    : defaultValue;
+            String value = properties.get(key);
+            return value == null ? defaultValue : Boolean.parseBoolean(value);
         }
 
         public Pattern prop(String key, Pattern defaultValue) {
-            if (properties.containsKey(key)) {
-                try {
-                    return Pattern.compile(properties.get(key));
-                } catch (Throwable ignored) {
+            Object pattern = parsed.computeIfAbsent("pattern:" + key, k -> {
+                String value = properties.get(key);
+                if (value != null) {
+                    try {
+                        return Pattern.compile(value);
+                    } catch (PatternSyntaxException ignored) {
+                    }
                 }
-            }
-            return defaultValue;
+                return ABSENT;
+            });
+            return pattern == ABSENT ? defaultValue : (Pattern) pattern;
         }
 
+        @SuppressWarnings("unchecked")
         public <T extends Enum<T>> Set<T> propAsTokens(Class<T> enumType, Set<T> defaultValue) {
-            return properties.containsKey("tokens") ?
-                    stream(properties.get("tokens").split("\\s*,\\s*"))
-                            .map(token -> {
-                                try {
-                                    return Enum.valueOf(enumType, token);
-                                } catch (Throwable t) {
-                                    return null;
-                                }
-                            })
-                            .filter(Objects::nonNull)
-                            .collect(toSet()) :
-                    defaultValue;
-        }
-
-        public <T> T propAsOptionValue(Function<String, T> valueOf, T defaultValue) {
-            try {
-                return valueOf.apply(toUpper(properties.get("option")));
-            } catch (Throwable t) {
-                try {
-                    return valueOf.apply(properties.get("option").toUpperCase());
-                } catch (Throwable t2) {
-                    return defaultValue;
+            Object tokens = parsed.computeIfAbsent("tokens:" + enumType.getName(), k -> {
+                String value = properties.get("tokens");
+                if (value == null) {
+                    return ABSENT;
                 }
-            }
+
+                Set<T> enumTokens = EnumSet.noneOf(enumType);
+                for (String token : value.split(",")) {
+                    T enumToken = enumConstant(enumType, token.trim(), false);
+                    if (enumToken != null) {
+                        enumTokens.add(enumToken);
+                    }
+                }
+                return Collections.unmodifiableSet(enumTokens);
+            });
+            return tokens == ABSENT ? defaultValue : (Set<T>) tokens;
+        }
+
+        /**
+         * Checkstyle options are matched without regard to case, so that "eol" and "EOL" both select
+         * {@code LeftCurlyPolicy.EOL} and "text" selects {@code BlockPolicy.Text}.
+         */
+        public <T extends Enum<T>> T propAsOptionValue(Class<T> enumType, T defaultValue) {
+            Object option = parsed.computeIfAbsent("option:" + enumType.getName(), k -> {
+                String value = properties.get("option");
+                T enumOption = value == null ? null : enumConstant(enumType, value.trim(), true);
+                return enumOption == null ? ABSENT : enumOption;
+            });
+            return option == ABSENT ? defaultValue : enumType.cast(option);
         }
 
         @Nullable
-        private String toUpper(String value) {
-            return (value != null && value.length() > 1) ? value.substring(0, 1).toUpperCase() + value.substring(1) : null;
+        private static <T extends Enum<T>> T enumConstant(Class<T> enumType, String name, boolean ignoreCase) {
+            for (T constant : enumType.getEnumConstants()) {
+                if (ignoreCase ? constant.name().equalsIgnoreCase(name) : constant.name().equals(name)) {
+                    return constant;
+                }
+            }
+            return null;
         }
     }
 }
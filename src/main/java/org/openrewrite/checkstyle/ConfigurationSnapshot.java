@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A binary copy of a loaded configuration, kept next to the configuration XML so that later runs can skip
+ * Checkstyle's XML parsing, DTD handling and property expansion. A snapshot records the hash of the XML and the
+ * properties used to resolve it, and the hash of the suppressions file it refers to, and is ignored once either
+ * of them changes.
+ */
+final class ConfigurationSnapshot {
+    private static final int MAGIC = 0x52435353;
+    private static final int VERSION = 2;
+
+    private ConfigurationSnapshot() {
+    }
+
+    static CheckstyleRefactorVisitor.LoadedConfiguration load(Path configFile, @Nullable Map<String, Object> properties,
+                                                              @Nullable Path baseDir)
+            throws IOException, CheckstyleException {
+        byte[] config = Files.readAllBytes(configFile);
+        byte[] key = key(config, properties, baseDir);
+        Path snapshot = configFile.resolveSibling(configFile.getFileName() + ".snapshot");
+
+        CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration = read(snapshot, key);
+        if (loadedConfiguration == null) {
+            loadedConfiguration = CheckstyleRefactorVisitor.loadConfiguration(new ByteArrayInputStream(config), properties,
+                    baseDir);
+            // suppressions loaded from a URL or the classpath have no file whose hash could tell when they change
+            Suppressions suppressions = loadedConfiguration.suppressions;
+            if (suppressions.fileHash != null || suppressions.suppressions.isEmpty()) {
+                try {
+                    write(snapshot, key, loadedConfiguration);
+                } catch (IOException ignored) {
+                    // the configuration may be in a read-only location, in which case it is parsed on every run
+                }
+            }
+        }
+        return loadedConfiguration;
+    }
+
+    /**
+     * @param baseDir The directory against which a relative suppressions file is resolved, or {@code null} for the
+     *                working directory of this process, which is then what the key records, since the same
+     *                configuration run from another directory may refer to another suppressions file.
+     */
+    static byte[] key(byte[] config, @Nullable Map<String, Object> properties, @Nullable Path baseDir) {
+        MessageDigest digest = sha256();
+        digest.update(config);
+        Path resolvedBaseDir = baseDir == null ? Paths.get("") : baseDir;
+        digest.update((resolvedBaseDir.toAbsolutePath().normalize() + "\0").getBytes(StandardCharsets.UTF_8));
+        if (properties != null) {
+            for (Map.Entry<String, Object> property : new TreeMap<>(properties).entrySet()) {
+                digest.update((property.getKey() + "=" + property.getValue() + "\0").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return digest.digest();
+    }
+
+    @Nullable
+    static CheckstyleRefactorVisitor.LoadedConfiguration read(Path snapshot, byte[] key) {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION || !Arrays.equals(bytes(in, key.length), key)) {
+                return null;
+            }
+
+            List<CheckstyleRefactorVisitor.Module> modules = new ArrayList<>();
+            for (int m = in.getInt(); m > 0; m--) {
+                String name = string(in);
+                Map<String, String> moduleProperties = new HashMap<>();
+                for (int p = in.getInt(); p > 0; p--) {
+                    moduleProperties.put(string(in), string(in));
+                }
+                modules.add(new CheckstyleRefactorVisitor.Module(name, moduleProperties));
+            }
+
+            Suppressions suppressions = Suppressions.NONE;
+            String suppressionsFile = nullableString(in);
+            if (suppressionsFile != null) {
+                File file = new File(suppressionsFile);
+                byte[] fileHash = bytes(in, 32);
+                long lastModified = file.lastModified();
+                long length = file.length();
+                if (!file.isFile() || !Arrays.equals(fileHash, sha256().digest(Files.readAllBytes(file.toPath())))) {
+                    return null;
+                }
+
+                List<Suppressions.Suppress> suppress = new ArrayList<>();
+                for (int s = in.getInt(); s > 0; s--) {
+                    String files = nullableString(in);
+                    String checks = nullableString(in);
+                    String id = nullableString(in);
+                    int ranges = in.getInt();
+                    if (ranges < 0 || ranges > in.remaining() / 8) {
+                        return null;
+                    }
+                    int[] starts = new int[ranges];
+                    int[] ends = new int[ranges];
+                    for (int r = 0; r < ranges; r++) {
+                        starts[r] = in.getInt();
+                        ends[r] = in.getInt();
+                    }
+                    suppress.add(new Suppressions.Suppress(
+                            files == null ? null : Pattern.compile(files),
+                            checks == null ? null : Pattern.compile(checks),
+                            id,
+                            ranges == 1 && starts[0] == 1 && ends[0] == Integer.MAX_VALUE ?
+                                    Suppressions.LineRanges.ALL :
+                                    new Suppressions.LineRanges(starts, ends)));
+                }
+                suppressions = new Suppressions(file, fileHash, lastModified, length, suppress);
+            }
+
+            return new CheckstyleRefactorVisitor.LoadedConfiguration(modules, suppressions);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            // a snapshot that can't be read is replaced by parsing the configuration again
+            return null;
+        }
+    }
+
+    private static void write(Path snapshot, byte[] key, CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+
+            out.writeInt(loadedConfiguration.modulesByName.size());
+            for (CheckstyleRefactorVisitor.Module module : loadedConfiguration.modulesByName.values()) {
+                writeString(out, module.getName());
+                out.writeInt(module.getProperties().size());
+                for (Map.Entry<String, String> property : module.getProperties().entrySet()) {
+                    writeString(out, property.getKey());
+                    writeString(out, property.getValue());
+                }
+            }
+
+            Suppressions suppressions = loadedConfiguration.suppressions;
+            // the suppressions file is recorded by its absolute path, so the snapshot means the same thing to a
+            // process in any working directory
+            File suppressionsFile = suppressions.fileHash == null ? null : suppressions.file;
+            writeString(out, suppressionsFile == null ? null : suppressionsFile.getAbsolutePath());
+            if (suppressionsFile != null) {
+                out.write(suppressions.fileHash);
+                out.writeInt(suppressions.suppressions.size());
+                for (Suppressions.Suppress suppress : suppressions.suppressions) {
+                    writeString(out, suppress.files == null ? null : suppress.files.pattern());
+                    writeString(out, suppress.checks == null ? null : suppress.checks.pattern());
+                    writeString(out, suppress.id);
+                    out.writeInt(suppress.lines.starts.length);
+                    for (int r = 0; r < suppress.lines.starts.length; r++) {
+                        out.writeInt(suppress.lines.starts[r]);
+                        out.writeInt(suppress.lines.ends[r]);
+                    }
+                }
+            }
+        }
+
+        Path temp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String string(ByteBuffer in) {
+        String s = nullableString(in);
+        if (s == null) {
+            throw new IllegalArgumentException("Unexpected null string in snapshot");
+        }
+        return s;
+    }
+
+    @Nullable
+    private static String nullableString(ByteBuffer in) {
+        int length = in.getInt();
+        return length < 0 ? null : new String(bytes(in, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(ByteBuffer in, int length) {
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
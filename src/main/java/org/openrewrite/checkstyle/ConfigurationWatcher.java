@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Counts changes to configuration and suppressions files, so that long-lived visitors can tell when the files
+ * they were configured from have changed. One daemon thread watches the directories of every file asked about.
+ */
+final class ConfigurationWatcher {
+    private static final Map<Path, AtomicLong> generations = new ConcurrentHashMap<>();
+    private static final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+
+    @Nullable
+    private static WatchService watchService;
+
+    private ConfigurationWatcher() {
+    }
+
+    /**
+     * @return A number that changes whenever the file is created, modified or deleted after the first call for it.
+     * If the file's directory can't be watched, the number never changes.
+     */
+    static long generation(@Nullable File file) {
+        if (file == null) {
+            return 0;
+        }
+        Path path = file.toPath().toAbsolutePath().normalize();
+        return generations.computeIfAbsent(path, p -> {
+            watch(p.getParent());
+            return new AtomicLong();
+        }).get();
+    }
+
+    private static synchronized void watch(@Nullable Path directory) {
+        if (directory == null || watchedDirectories.containsKey(directory)) {
+            return;
+        }
+
+        try {
+            if (watchService == null) {
+                watchService = directory.getFileSystem().newWatchService();
+                Thread thread = new Thread(ConfigurationWatcher::countChanges, "rewrite-checkstyle-config-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            watchedDirectories.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+        } catch (IOException | UnsupportedOperationException ignored) {
+            // without a watch, visitors keep the configuration they have
+        }
+    }
+
+    private static void countChanges() {
+        WatchService watchService;
+        synchronized (ConfigurationWatcher.class) {
+            watchService = ConfigurationWatcher.watchService;
+        }
+
+        while (watchService != null) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // events were lost, so any file in this directory may have changed
+                    generations.forEach((path, generation) -> {
+                        if (directory.equals(path.getParent())) {
+                            generation.incrementAndGet();
+                        }
+                    });
+                } else {
+                    AtomicLong generation = generations.get(directory.resolve((Path) event.context()));
+                    if (generation != null) {
+                        generation.incrementAndGet();
+                    }
+                }
+            }
+
+            if (!key.reset()) {
+                watchedDirectories.remove(directory);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.openrewrite.java.tree.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
@@ -56,6 +57,16 @@ public class CovariantEquals extends CheckstyleRefactorVisitor {
         setCursoringOn();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.MethodDecl.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("equals");
+    }
+
     @Override
     public J visitMethod(J.MethodDecl method) {
         J.MethodDecl m = refactor(method, super::visitMethod);
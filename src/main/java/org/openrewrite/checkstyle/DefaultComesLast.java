@@ -21,7 +21,9 @@ import org.openrewrite.java.tree.Statement;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.openrewrite.Tree.randomId;
 
@@ -34,6 +36,16 @@ public class DefaultComesLast extends CheckstyleRefactorVisitor {
         skipIfLastAndSharedWithCase = m.prop("skipIfLastAndSharedWithCase", false);
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Switch.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return asList("switch", "default");
+    }
+
     @Override
     public J visitSwitch(J.Switch switzh) {
         J.Switch s = refactor(switzh, super::visitSwitch);
@@ -20,7 +20,6 @@ import org.openrewrite.Tree;
 import org.openrewrite.checkstyle.policy.BlockPolicy;
 import org.openrewrite.checkstyle.policy.Token;
 import org.openrewrite.java.DeleteStatement;
-import org.openrewrite.java.JavaRefactorVisitor;
 import org.openrewrite.java.tree.*;
 
 import java.util.ArrayList;
@@ -67,10 +66,16 @@ public class EmptyBlock extends CheckstyleRefactorVisitor {
 
     @Override
     protected void configure(Module m) {
-        block = m.propAsOptionValue(BlockPolicy::valueOf, BlockPolicy.Statement);
+        block = m.propAsOptionValue(BlockPolicy.class, BlockPolicy.Statement);
         tokens = m.propAsTokens(Token.class, DEFAULT_TOKENS);
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Block.class, J.Try.Catch.class, J.DoWhileLoop.class, J.If.class, J.Switch.class,
+                J.Synchronized.class, J.Try.class, J.WhileLoop.class);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public J visitWhileLoop(J.WhileLoop whileLoop) {
@@ -274,7 +279,7 @@ public class EmptyBlock extends CheckstyleRefactorVisitor {
                 ((J.Block<?>) blockNode).getStatements().isEmpty();
     }
 
-    private static class ExtractSideEffectsOfIfCondition extends JavaRefactorVisitor {
+    private static class ExtractSideEffectsOfIfCondition extends BudgetedRefactorVisitor {
         private final J.Block<?> enclosingBlock;
         private final J.If toExtract;
 
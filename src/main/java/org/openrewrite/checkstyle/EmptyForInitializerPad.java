@@ -20,23 +20,47 @@ import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.Statement;
 
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.singletonList;
+
 @AutoConfigure
-public class EmptyForInitializerPad extends CheckstyleRefactorVisitor {
+public class EmptyForInitializerPad extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private PadPolicy option;
 
     @Override
     protected void configure(Module m) {
-        option = m.propAsOptionValue(PadPolicy::valueOf, PadPolicy.NOSPACE);
+        option = m.propAsOptionValue(PadPolicy.class, PadPolicy.NOSPACE);
+    }
+
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.ForLoop.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("for");
     }
 
     @Override
     public J visitForLoop(J.ForLoop forLoop) {
-        J.ForLoop f = refactor(forLoop, super::visitForLoop);
-        String prefix = forLoop.getControl().getInit().getFormatting().getPrefix();
+        return visitFused(refactor(forLoop, super::visitForLoop));
+    }
+
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.ForLoop)) {
+            return j;
+        }
+
+        J.ForLoop f = (J.ForLoop) j;
+        String prefix = f.getControl().getInit().getFormatting().getPrefix();
 
         if (!prefix.startsWith("\n") &&
-                (option == PadPolicy.NOSPACE ? prefix.startsWith(" ") || prefix.startsWith("\t") : prefix.isEmpty()) &&
-                forLoop.getControl().getInit() instanceof J.Empty) {
+                (option == PadPolicy.NOSPACE ? WhitespaceChecks.startsWithNonLinebreakWhitespace(prefix) : prefix.isEmpty()) &&
+                f.getControl().getInit() instanceof J.Empty) {
             Statement init = f.getControl().getInit();
             String fixedPrefix = option == PadPolicy.NOSPACE ? "" : " ";
             f = f.withControl(f.getControl().withInit(init.withPrefix(fixedPrefix)));
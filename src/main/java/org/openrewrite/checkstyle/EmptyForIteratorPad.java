@@ -19,26 +19,49 @@ import org.openrewrite.checkstyle.policy.PadPolicy;
 import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.singletonList;
 import static org.openrewrite.Formatting.formatLastSuffix;
 import static org.openrewrite.Formatting.lastSuffix;
 
 @AutoConfigure
-public class EmptyForIteratorPad extends CheckstyleRefactorVisitor {
+public class EmptyForIteratorPad extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private PadPolicy option;
 
     @Override
     protected void configure(Module m) {
-        option = m.propAsOptionValue(PadPolicy::valueOf, PadPolicy.NOSPACE);
+        option = m.propAsOptionValue(PadPolicy.class, PadPolicy.NOSPACE);
+    }
+
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.ForLoop.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("for");
     }
 
     @Override
     public J visitForLoop(J.ForLoop forLoop) {
-        J.ForLoop f = refactor(forLoop, super::visitForLoop);
-        String suffix = lastSuffix(forLoop.getControl().getUpdate());
+        return visitFused(refactor(forLoop, super::visitForLoop));
+    }
+
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.ForLoop)) {
+            return j;
+        }
+
+        J.ForLoop f = (J.ForLoop) j;
+        String suffix = lastSuffix(f.getControl().getUpdate());
 
         if (!suffix.contains("\n") &&
                 (option == PadPolicy.NOSPACE ? suffix.endsWith(" ") || suffix.endsWith("\t") : suffix.isEmpty()) &&
-                forLoop.getControl().getUpdate().stream().reduce((u1, u2) -> u2).map(u -> u instanceof J.Empty).orElse(false)) {
+                f.getControl().getUpdate().stream().reduce((u1, u2) -> u2).map(u -> u instanceof J.Empty).orElse(false)) {
             f = f.withControl(f.getControl().withUpdate(formatLastSuffix(f.getControl().getUpdate(), option == PadPolicy.NOSPACE ? "" : " ")));
         }
 
@@ -19,11 +19,11 @@ import org.openrewrite.Cursor;
 import org.openrewrite.Tree;
 import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.DeleteStatement;
-import org.openrewrite.java.JavaRefactorVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.Statement;
 
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.stream.Collectors.toList;
@@ -34,6 +34,11 @@ public class EmptyStatement extends CheckstyleRefactorVisitor {
         setCursoringOn();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Block.class, J.ForEachLoop.class, J.ForLoop.class, J.If.class, J.WhileLoop.class);
+    }
+
     @Override
     public J visitIf(J.If iff) {
         J.If i = refactor(iff, super::visitIf);
@@ -98,7 +103,7 @@ public class EmptyStatement extends CheckstyleRefactorVisitor {
         return statement instanceof J.Empty;
     }
 
-    private static class RemoveStatementFromParentBlock extends JavaRefactorVisitor {
+    private static class RemoveStatementFromParentBlock extends BudgetedRefactorVisitor {
         private final Tree scope;
         private final Statement statement;
 
@@ -17,12 +17,14 @@ package org.openrewrite.checkstyle;
 
 import org.openrewrite.Tree;
 import org.openrewrite.AutoConfigure;
-import org.openrewrite.java.JavaRefactorVisitor;
 import org.openrewrite.java.MethodMatcher;
 import org.openrewrite.java.tree.Expression;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 
+import java.util.List;
+import java.util.Set;
+
 import static java.util.Collections.singletonList;
 import static org.openrewrite.Formatting.EMPTY;
 import static org.openrewrite.Formatting.stripPrefix;
@@ -43,6 +45,16 @@ public class EqualsAvoidsNull extends CheckstyleRefactorVisitor {
         this.ignoreEqualsIgnoreCase = m.prop("ignoreEqualsIgnoreCase", false);
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Binary.class, J.MethodInvocation.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("equals");
+    }
+
     @Override
     public J visitMethodInvocation(J.MethodInvocation method) {
         J.MethodInvocation m = refactor(method, super::visitMethodInvocation);
@@ -74,10 +86,10 @@ public class EqualsAvoidsNull extends CheckstyleRefactorVisitor {
     }
 
     private boolean matchesSelect(Expression expression, Expression select) {
-        return expression.printTrimmed().replaceAll("\\s", "").equals(select.printTrimmed().replaceAll("\\s", ""));
+        return StructuralEquality.equal(expression, select);
     }
 
-    private static class RemoveUnnecessaryNullCheck extends JavaRefactorVisitor {
+    private static class RemoveUnnecessaryNullCheck extends BudgetedRefactorVisitor {
         private final J.Binary scope;
 
         public RemoveUnnecessaryNullCheck(J.Binary scope) {
@@ -21,6 +21,8 @@ import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.java.tree.TypeUtils;
 
+import java.util.Set;
+
 import static org.openrewrite.Formatting.formatLastSuffix;
 import static org.openrewrite.Formatting.stripSuffix;
 
@@ -37,6 +39,11 @@ public class ExplicitInitialization extends CheckstyleRefactorVisitor {
         this.onlyObjectReferences = m.prop("onlyObjectReferences", false);
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.VariableDecls.NamedVar.class);
+    }
+
     @Override
     public J visitVariable(J.VariableDecls.NamedVar variable) {
         J.VariableDecls.NamedVar v = refactor(variable, super::visitVariable);
@@ -18,13 +18,13 @@ package org.openrewrite.checkstyle;
 import org.openrewrite.AutoConfigure;
 import org.openrewrite.Tree;
 import org.openrewrite.java.AbstractJavaSourceVisitor;
-import org.openrewrite.java.JavaRefactorVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.Statement;
 
 import java.util.*;
 import java.util.regex.Pattern;
 
+import static java.util.Arrays.asList;
 import static org.openrewrite.Tree.randomId;
 
 @AutoConfigure
@@ -50,6 +50,16 @@ public class FallThrough extends CheckstyleRefactorVisitor {
         super.next();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Block.class, J.Case.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return asList("switch", "case");
+    }
+
     @Override
     public J visitCase(J.Case caze) {
         J.Switch switzh = getCursor().getParentOrThrow().getParentOrThrow().getTree();
@@ -66,7 +76,7 @@ public class FallThrough extends CheckstyleRefactorVisitor {
         return caze == switchBlock.getStatements().get(switchBlock.getStatements().size() - 1);
     }
 
-    private static class AddBreak extends JavaRefactorVisitor {
+    private static class AddBreak extends BudgetedRefactorVisitor {
         private final J.Case scope;
 
         public AddBreak(J.Case scope) {
@@ -21,24 +21,34 @@ import org.openrewrite.java.tree.J;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.openrewrite.Formatting.format;
 import static org.openrewrite.Formatting.formatFirstPrefix;
 import static org.openrewrite.Tree.randomId;
 
 @AutoConfigure
-public class FinalClass extends CheckstyleRefactorVisitor {
+public class FinalClass extends CheckstyleRefactorVisitor implements FusibleVisitor {
 
     @Override
-    public boolean isIdempotent() {
-        return false;
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.ClassDecl.class);
     }
 
     @Override
     public J visitClassDecl(J.ClassDecl classDecl) {
-        J.ClassDecl c = refactor(classDecl, super::visitClassDecl);
+        return visitFused(refactor(classDecl, super::visitClassDecl));
+    }
+
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.ClassDecl)) {
+            return j;
+        }
 
-        if(classDecl.getBody().getStatements().stream()
+        J.ClassDecl c = (J.ClassDecl) j;
+        if (c.getModifiers().stream().noneMatch(m -> m instanceof J.Modifier.Final) &&
+                c.getBody().getStatements().stream()
                 .noneMatch(s -> s instanceof J.MethodDecl &&
                         ((J.MethodDecl) s).isConstructor() &&
                         !((J.MethodDecl) s).hasModifier("private"))) {
@@ -22,6 +22,7 @@ import org.openrewrite.java.tree.J;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.openrewrite.Formatting.*;
 import static org.openrewrite.Tree.randomId;
@@ -32,6 +33,11 @@ public class FinalLocalVariable extends CheckstyleRefactorVisitor {
         setCursoringOn();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.VariableDecls.class);
+    }
+
     @Override
     public J visitMultiVariable(J.VariableDecls multiVariable) {
 
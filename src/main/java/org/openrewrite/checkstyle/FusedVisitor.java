@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.openrewrite.Cursor;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaRefactorVisitor;
+import org.openrewrite.java.tree.J;
+
+import java.util.*;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Runs several {@link FusibleVisitor}s in one depth-first traversal of a compilation unit instead of one each.
+ * After the children of a node have been visited, the node is passed to each visitor in turn, in the order they
+ * were given, and each sees the rewrites made by the visitors before it. While a delegate fixes a node, its cursor
+ * is this visitor's, pointing at the node as it was before its children were visited, as it would be if the
+ * delegate were visiting on its own.
+ * <p>
+ * A refactoring only knows that this visitor as a whole made changes, so it records which of its delegates did,
+ * for {@link RewriteCheckstyle#getRulesThatMadeChanges(org.openrewrite.Change)} to report them individually.
+ */
+class FusedVisitor extends JavaRefactorVisitor {
+    private final List<CheckstyleRefactorVisitor> delegates;
+
+    /**
+     * The delegates that are not suppressed for the whole of the compilation unit being visited.
+     */
+    private List<CheckstyleRefactorVisitor> active = new ArrayList<>();
+
+    /**
+     * The node kinds that the active delegates fix, and the kinds in each subtree of the compilation unit.
+     */
+    private long nodeKinds = NodeKinds.ALL;
+
+    @Nullable
+    private Map<Tree, Long> nodeKindSummaries;
+
+    /**
+     * The delegates that changed any compilation unit visited by this visitor.
+     */
+    private final Set<CheckstyleRefactorVisitor> delegatesThatMadeChanges = new HashSet<>();
+
+    /**
+     * The cursor at the node that the delegates are fixing.
+     */
+    @Nullable
+    private Cursor fusedCursor;
+
+    /**
+     * @param delegates Visitors that implement {@link FusibleVisitor}.
+     */
+    FusedVisitor(List<CheckstyleRefactorVisitor> delegates) {
+        this.delegates = delegates;
+        setCursoringOn();
+    }
+
+    @Override
+    public Iterable<Tag> getTags() {
+        return Tags.of("visitors", delegates.stream()
+                .map(delegate -> delegate.getClass().getSimpleName())
+                .collect(joining(",")));
+    }
+
+    @Override
+    public J visit(@Nullable Tree tree) {
+        VisitBudget.check();
+        if (tree != null && !NodeKinds.mayContain(nodeKindSummaries, tree, nodeKinds)) {
+            return (J) tree;
+        }
+
+        J j = super.visit(tree);
+        if (tree == null || j == null) {
+            return j;
+        }
+
+        // the cursor has already been moved back up to the parent of the node
+        fusedCursor = new Cursor(getCursor(), tree);
+        for (CheckstyleRefactorVisitor delegate : active) {
+            if (!delegate.isSuppressed(tree)) {
+                J fixed = ((FusibleVisitor) delegate).visitFused(j);
+                if (fixed != j) {
+                    delegatesThatMadeChanges.add(delegate);
+                    j = fixed;
+                }
+            }
+        }
+        return j;
+    }
+
+    Cursor getFusedCursor() {
+        if (fusedCursor == null) {
+            throw new IllegalStateException("The cursor is only available while a delegate is fixing a node");
+        }
+        return fusedCursor;
+    }
+
+    /**
+     * @return The names of the delegates that made changes, as each would report itself if run on its own.
+     */
+    List<String> getDelegatesThatMadeChanges() {
+        List<String> names = new ArrayList<>();
+        for (CheckstyleRefactorVisitor delegate : delegates) {
+            if (delegatesThatMadeChanges.contains(delegate)) {
+                names.add(delegate.getName());
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public J visitCompilationUnit(J.CompilationUnit cu) {
+        // a file that exceeds its budget is reported against the checks that were running, not this visitor
+        VisitBudget.enter(delegates.stream()
+                .map(delegate -> delegate.getClass().getSimpleName())
+                .collect(joining(",")));
+        active = new ArrayList<>(delegates.size());
+        nodeKinds = 0;
+        for (CheckstyleRefactorVisitor delegate : delegates) {
+            if (delegate.beginFusedVisit(cu, this)) {
+                active.add(delegate);
+                nodeKinds |= delegate.nodeKinds();
+            }
+        }
+        nodeKindSummaries = nodeKinds == NodeKinds.ALL ? null : NodeKinds.shared().summarize(cu);
+        return active.isEmpty() ? cu : super.visitCompilationUnit(cu);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import org.openrewrite.java.tree.J;
+
+/**
+ * A visitor whose fix for a node only depends on that node, its subtree once the subtree has been fixed, and the
+ * ancestors of the node on the cursor. It doesn't use {@code andThen}, so a {@link FusedVisitor} can run it
+ * together with other such visitors in a single traversal, supplying its cursor and formatter.
+ */
+interface FusibleVisitor {
+    /**
+     * @param j A node whose children have already been visited.
+     * @return The fixed node, or {@code j} itself if this visitor doesn't apply to it.
+     */
+    J visitFused(J j);
+}
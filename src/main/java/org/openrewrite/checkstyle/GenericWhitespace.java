@@ -20,7 +20,9 @@ import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 
 import java.util.List;
+import java.util.Set;
 
+import static java.util.Collections.singletonList;
 import static org.openrewrite.checkstyle.WhitespaceChecks.*;
 
 @AutoConfigure
@@ -29,6 +31,16 @@ public class GenericWhitespace extends CheckstyleRefactorVisitor {
         setCursoringOn();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.TypeParameter.class, J.TypeParameters.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("<");
+    }
+
     @Override
     public J visitTypeParameters(J.TypeParameters typeParams) {
         J.TypeParameters t = refactor(typeParams, super::visitTypeParameters);
@@ -21,7 +21,6 @@ import org.openrewrite.checkstyle.policy.Token;
 import org.openrewrite.AutoConfigure;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.AbstractJavaSourceVisitor;
-import org.openrewrite.java.JavaRefactorVisitor;
 import org.openrewrite.java.JavaSourceVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
@@ -54,7 +53,7 @@ public class HiddenField extends CheckstyleRefactorVisitor {
     private boolean ignoreSetter;
     private boolean setterCanReturnItsClass;
     private boolean ignoreAbstractMethods;
-    private Set<Token> tokens;
+    private long tokenMask;
 
     public HiddenField() {
         setCursoringOn();
@@ -67,7 +66,12 @@ public class HiddenField extends CheckstyleRefactorVisitor {
         this.ignoreSetter = m.prop("ignoreSetter", false);
         this.setterCanReturnItsClass = m.prop("setterCanReturnItsClass", false);
         this.ignoreAbstractMethods = m.prop("ignoreAbstractMethods", false);
-        this.tokens = m.propAsTokens(Token.class, DEFAULT_TOKENS);
+        this.tokenMask = Token.mask(m.propAsTokens(Token.class, DEFAULT_TOKENS));
+    }
+
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.ClassDecl.class, J.VariableDecls.NamedVar.class);
     }
 
     @Override
@@ -176,9 +180,8 @@ public class HiddenField extends CheckstyleRefactorVisitor {
                     !isIgnorableConstructorParam &&
                     !isIgnorableAbstractMethod &&
                     variable.getSimpleName().equals(thatLookLikeName) &&
-                    tokens.stream().anyMatch(t -> t.equals(Token.LAMBDA) ?
-                            getCursor().getParentOrThrow().getTree() instanceof J.Lambda.Parameters :
-                            t.getMatcher().matches(getCursor()))) {
+                    (((tokenMask & Token.LAMBDA.bit()) != 0 && getCursor().getParentOrThrow().getTree() instanceof J.Lambda.Parameters) ||
+                            Token.matchesOneOf(tokenMask & ~Token.LAMBDA.bit(), getCursor()))) {
                 shadows.add(variable);
             }
             return shadows;
@@ -209,7 +212,7 @@ public class HiddenField extends CheckstyleRefactorVisitor {
         }
     }
 
-    private static class RenameShadowedName extends JavaRefactorVisitor {
+    private static class RenameShadowedName extends BudgetedRefactorVisitor {
         private final J.VariableDecls.NamedVar scope;
         private final List<JavaType.Var> supertypeMembers;
 
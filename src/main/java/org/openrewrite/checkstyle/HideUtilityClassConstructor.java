@@ -19,18 +19,32 @@ import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 
 import java.util.List;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 import static org.openrewrite.Tree.randomId;
 
 @AutoConfigure
-public class HideUtilityClassConstructor extends CheckstyleRefactorVisitor {
+public class HideUtilityClassConstructor extends CheckstyleRefactorVisitor implements FusibleVisitor {
+
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.ClassDecl.class);
+    }
 
     @Override
     public J visitClassDecl(J.ClassDecl classDecl) {
-        J.ClassDecl c = refactor(classDecl, super::visitClassDecl);
+        return visitFused(refactor(classDecl, super::visitClassDecl));
+    }
+
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.ClassDecl)) {
+            return j;
+        }
 
-        if (classDecl.getBody().getStatements().stream()
+        J.ClassDecl c = (J.ClassDecl) j;
+        if (c.getBody().getStatements().stream()
                 .allMatch(s -> s instanceof J.MethodDecl && (
                         ((J.MethodDecl) s).isConstructor() ||
                                 ((J.MethodDecl) s).hasModifier("static"))
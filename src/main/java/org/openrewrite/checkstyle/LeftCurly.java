@@ -29,7 +29,7 @@ import java.util.stream.Stream;
 import static java.util.stream.Collectors.toSet;
 
 @AutoConfigure
-public class LeftCurly extends CheckstyleRefactorVisitor {
+public class LeftCurly extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private static final Set<Token> DEFAULT_TOKENS = Stream.of(
             Token.ANNOTATION_DEF,
             Token.CLASS_DEF,
@@ -69,15 +69,25 @@ public class LeftCurly extends CheckstyleRefactorVisitor {
 
     @Override
     protected void configure(Module m) {
-        this.option = m.propAsOptionValue(LeftCurlyPolicy::valueOf, LeftCurlyPolicy.EOL);
+        this.option = m.propAsOptionValue(LeftCurlyPolicy.class, LeftCurlyPolicy.EOL);
         this.ignoreEnums = m.prop("ignoreEnums", false);
         this.tokens = m.propAsTokens(Token.class, DEFAULT_TOKENS);
     }
 
     @Override
     public J visitBlock(J.Block<J> block) {
-        J.Block<J> b = refactor(block, super::visitBlock);
+        return visitFused(refactor(block, super::visitBlock));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.Block)) {
+            return j;
+        }
 
+        J.Block<J> b = (J.Block<J>) j;
+        J.Block<J> block = getCursor().getTree();
         Cursor containing = getCursor().getParentOrThrow();
 
         boolean spansMultipleLines = LeftCurlyPolicy.NLOW.equals(option) ?
@@ -39,9 +39,13 @@ public class MethodParamPad extends CheckstyleRefactorVisitor {
             Token.CTOR_DEF, Token.LITERAL_NEW, Token.METHOD_CALL, Token.METHOD_DEF, Token.SUPER_CTOR_CALL, Token.ENUM_CONSTANT_DEF
     ).collect(toSet());
 
+    private static final long METHOD_DEF_TOKENS = Token.mask(Token.METHOD_DEF);
+    private static final long NEW_CLASS_TOKENS = Token.mask(Token.LITERAL_NEW);
+    private static final long METHOD_INVOCATION_TOKENS = Token.mask(Token.METHOD_CALL, Token.SUPER_CTOR_CALL);
+
     private boolean allowLineBreaks;
     private PadPolicy option;
-    private Set<Token> tokens;
+    private long tokenMask;
 
     public MethodParamPad() {
         setCursoringOn();
@@ -50,33 +54,38 @@ public class MethodParamPad extends CheckstyleRefactorVisitor {
     @Override
     protected void configure(Module m) {
         this.allowLineBreaks = m.prop("allowLineBreaks", false);
-        this.option = m.propAsOptionValue(PadPolicy::valueOf, PadPolicy.NOSPACE);
-        this.tokens = m.propAsTokens(Token.class, DEFAULT_TOKENS);
+        this.option = m.propAsOptionValue(PadPolicy.class, PadPolicy.NOSPACE);
+        this.tokenMask = Token.mask(m.propAsTokens(Token.class, DEFAULT_TOKENS));
+    }
+
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.MethodDecl.class, J.MethodInvocation.class, J.NewClass.class);
     }
 
     @Override
     public J visitMethod(MethodDecl method) {
-        return maybeFixFormatting(method, super::visitMethod, MethodDecl::getParams, MethodDecl::withParams, Token.METHOD_DEF);
+        return maybeFixFormatting(method, super::visitMethod, MethodDecl::getParams, MethodDecl::withParams, METHOD_DEF_TOKENS);
     }
 
     @Override
     public J visitNewClass(NewClass newClass) {
-        return maybeFixFormatting(newClass, super::visitNewClass, NewClass::getArgs, NewClass::withArgs, Token.LITERAL_NEW);
+        return maybeFixFormatting(newClass, super::visitNewClass, NewClass::getArgs, NewClass::withArgs, NEW_CLASS_TOKENS);
     }
 
     @Override
     public J visitMethodInvocation(MethodInvocation method) {
         return maybeFixFormatting(method, super::visitMethodInvocation, MethodInvocation::getArgs, MethodInvocation::withArgs,
-                Token.METHOD_CALL, Token.SUPER_CTOR_CALL);
+                METHOD_INVOCATION_TOKENS);
     }
 
     private <T extends J, U extends Tree> T maybeFixFormatting(@Nullable T t, Function<T, Tree> callSuper,
                                                                Function<T, U> getter,
                                                                BiFunction<T, U, T> setter,
-                                                               Token... tokensToMatch) {
+                                                               long tokensToMatch) {
         t = refactor(t, callSuper);
 
-        if (getter.apply(t) != null && Token.matchesOneOf(tokens, getCursor(), tokensToMatch) && hasWrongSpacing(getter.apply(t))) {
+        if (getter.apply(t) != null && Token.matchesOneOf(tokenMask & tokensToMatch, getCursor()) && hasWrongSpacing(getter.apply(t))) {
             t = setter.apply(t, getter.apply(t).withPrefix(option == PadPolicy.NOSPACE ? "" : " "));
         }
 
@@ -87,7 +96,7 @@ public class MethodParamPad extends CheckstyleRefactorVisitor {
         String prefix = t.getFormatting().getPrefix();
         return option == PadPolicy.NOSPACE ?
                 !prefix.isEmpty() && (allowLineBreaks ?
-                        prefix.startsWith(" ") || prefix.startsWith("\t") :
+                        WhitespaceChecks.startsWithNonLinebreakWhitespace(prefix) :
                         Character.isWhitespace(prefix.charAt(0))) :
                 prefix.isEmpty();
     }
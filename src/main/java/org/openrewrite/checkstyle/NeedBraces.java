@@ -34,7 +34,7 @@ import static org.openrewrite.Formatting.format;
 import static org.openrewrite.Tree.randomId;
 
 @AutoConfigure
-public class NeedBraces extends CheckstyleRefactorVisitor {
+public class NeedBraces extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private static final Set<Token> DEFAULT_TOKENS = Stream.of(
             Token.LITERAL_DO, Token.LITERAL_ELSE, Token.LITERAL_FOR, Token.LITERAL_IF, Token.LITERAL_WHILE
     ).collect(toSet());
@@ -55,79 +55,88 @@ public class NeedBraces extends CheckstyleRefactorVisitor {
     }
 
     @Override
-    public J visitIf(J.If iff) {
-        J.If i = refactor(iff, super::visitIf);
-
-        if (tokens.contains(Token.LITERAL_IF) &&
-                !(iff.getThenPart() instanceof J.Block) &&
-                isNotAllowableSingleLine()) {
-            i = i.withThenPart(addBraces(i.getThenPart()));
-        }
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.DoWhileLoop.class, J.If.Else.class, J.ForLoop.class, J.If.class, J.WhileLoop.class);
+    }
 
-        return i;
+    @Override
+    public J visitIf(J.If iff) {
+        return visitFused(refactor(iff, super::visitIf));
     }
 
     @Override
     public J visitElse(J.If.Else elze) {
-        J.If.Else e = refactor(elze, super::visitElse);
-
-        if (tokens.contains(Token.LITERAL_ELSE) &&
-                !(elze.getStatement() instanceof J.If) &&
-                !(elze.getStatement() instanceof J.Block) &&
-                isNotAllowableSingleLine()) {
-            e = e.withStatement(addBraces(e.getStatement()));
-        }
-
-        return e;
+        return visitFused(refactor(elze, super::visitElse));
     }
 
     @Override
     public J visitWhileLoop(J.WhileLoop whileLoop) {
-        J.WhileLoop w = refactor(whileLoop, super::visitWhileLoop);
-
-        Statement body = w.getBody();
-        boolean hasAllowableBodyType = allowEmptyLoopBody ?
-                body instanceof J.Empty || body instanceof J.Block :
-                body instanceof J.Block;
-
-        if (tokens.contains(Token.LITERAL_WHILE) &&
-                !hasAllowableBodyType &&
-                isNotAllowableSingleLine()) {
-            w = w.withBody(addBraces(w.getBody()));
-        }
-
-        return w;
+        return visitFused(refactor(whileLoop, super::visitWhileLoop));
     }
 
     @Override
     public J visitDoWhileLoop(J.DoWhileLoop doWhileLoop) {
-        J.DoWhileLoop w = refactor(doWhileLoop, super::visitDoWhileLoop);
-
-        if (tokens.contains(Token.LITERAL_DO) &&
-                !(w.getBody() instanceof J.Block) &&
-                isNotAllowableSingleLine()) {
-            w = w.withBody(addBraces(w.getBody()));
-        }
-
-        return w;
+        return visitFused(refactor(doWhileLoop, super::visitDoWhileLoop));
     }
 
     @Override
     public J visitForLoop(J.ForLoop forLoop) {
-        J.ForLoop f = refactor(forLoop, super::visitForLoop);
-
-        Statement body = f.getBody();
-        boolean hasAllowableBodyType = allowEmptyLoopBody ?
-                body instanceof J.Empty || body instanceof J.Block :
-                body instanceof J.Block;
+        return visitFused(refactor(forLoop, super::visitForLoop));
+    }
 
-        if (tokens.contains(Token.LITERAL_FOR) &&
-                !hasAllowableBodyType &&
-                isNotAllowableSingleLine()) {
-            f = f.withBody(addBraces(f.getBody()));
+    @Override
+    public J visitFused(J j) {
+        if (j instanceof J.If) {
+            J.If i = (J.If) j;
+            J.If iff = getCursor().getTree();
+            if (tokens.contains(Token.LITERAL_IF) &&
+                    !(iff.getThenPart() instanceof J.Block) &&
+                    isNotAllowableSingleLine()) {
+                i = i.withThenPart(addBraces(i.getThenPart()));
+            }
+            return i;
+        } else if (j instanceof J.If.Else) {
+            J.If.Else e = (J.If.Else) j;
+            J.If.Else elze = getCursor().getTree();
+            if (tokens.contains(Token.LITERAL_ELSE) &&
+                    !(elze.getStatement() instanceof J.If) &&
+                    !(elze.getStatement() instanceof J.Block) &&
+                    isNotAllowableSingleLine()) {
+                e = e.withStatement(addBraces(e.getStatement()));
+            }
+            return e;
+        } else if (j instanceof J.WhileLoop) {
+            J.WhileLoop w = (J.WhileLoop) j;
+            if (tokens.contains(Token.LITERAL_WHILE) &&
+                    !hasAllowableBodyType(w.getBody()) &&
+                    isNotAllowableSingleLine()) {
+                w = w.withBody(addBraces(w.getBody()));
+            }
+            return w;
+        } else if (j instanceof J.DoWhileLoop) {
+            J.DoWhileLoop w = (J.DoWhileLoop) j;
+            if (tokens.contains(Token.LITERAL_DO) &&
+                    !(w.getBody() instanceof J.Block) &&
+                    isNotAllowableSingleLine()) {
+                w = w.withBody(addBraces(w.getBody()));
+            }
+            return w;
+        } else if (j instanceof J.ForLoop) {
+            J.ForLoop f = (J.ForLoop) j;
+            if (tokens.contains(Token.LITERAL_FOR) &&
+                    !hasAllowableBodyType(f.getBody()) &&
+                    isNotAllowableSingleLine()) {
+                f = f.withBody(addBraces(f.getBody()));
+            }
+            return f;
         }
+        return j;
+    }
 
-        return f;
+    private boolean hasAllowableBodyType(Statement body) {
+        return allowEmptyLoopBody ?
+                body instanceof J.Empty || body instanceof J.Block :
+                body instanceof J.Block;
     }
 
     private boolean isNotAllowableSingleLine() {
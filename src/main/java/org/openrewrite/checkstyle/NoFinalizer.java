@@ -19,16 +19,38 @@ import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 
 @AutoConfigure
-public class NoFinalizer extends CheckstyleRefactorVisitor {
+public class NoFinalizer extends CheckstyleRefactorVisitor implements FusibleVisitor {
+
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.ClassDecl.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("finalize");
+    }
 
     @Override
     public J visitClassDecl(J.ClassDecl classDecl) {
-        J.ClassDecl c = refactor(classDecl, super::visitClassDecl);
+        return visitFused(refactor(classDecl, super::visitClassDecl));
+    }
+
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.ClassDecl)) {
+            return j;
+        }
 
-        return classDecl.getMethods().stream()
+        J.ClassDecl c = (J.ClassDecl) j;
+        return c.getMethods().stream()
                 .filter(method -> method.getSimpleName().equals("finalize") &&
                         method.getReturnTypeExpr() != null &&
                         JavaType.Primitive.Void.equals(method.getReturnTypeExpr().getType()) &&
@@ -31,7 +31,6 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.openrewrite.Formatting.stripSuffix;
@@ -255,7 +254,7 @@ public class NoWhitespaceBefore extends CheckstyleRefactorVisitor {
                                                    Function<T, Tree> callSuper,
                                                    PunctuationToken... tokensToMatch) {
         T t = refactor(tree, callSuper);
-        if (stream(tokensToMatch).anyMatch(tokens::contains) && whitespaceInSuffix(tree)) {
+        if (containsAny(tokensToMatch) && whitespaceInSuffix(tree)) {
             t = stripSuffixUpToLinebreak(t);
         }
         return t;
@@ -265,21 +264,30 @@ public class NoWhitespaceBefore extends CheckstyleRefactorVisitor {
                                                    Function<T, Tree> callSuper,
                                                    PunctuationToken... tokensToMatch) {
         T t = refactor(tree, callSuper);
-        if (stream(tokensToMatch).anyMatch(tokens::contains) && whitespaceInPrefix(tree)) {
+        if (containsAny(tokensToMatch) && whitespaceInPrefix(tree)) {
             t = stripPrefixUpToLinebreak(t);
         }
         return t;
     }
 
+    private boolean containsAny(PunctuationToken... tokensToMatch) {
+        for (PunctuationToken token : tokensToMatch) {
+            if (tokens.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean whitespaceInSuffix(@Nullable Tree t) {
         if (t == null) {
             return false;
         }
         String suffix = t.getFormatting().getSuffix();
-        return (suffix.contains(" ") || suffix.contains("\t")) && (!allowLineBreaks || !suffix.startsWith("\n"));
+        return WhitespaceChecks.containsNonLinebreakWhitespace(suffix) && (!allowLineBreaks || !suffix.startsWith("\n"));
     }
 
     private boolean whitespaceInPrefix(@Nullable Tree t) {
-        return t != null && (t.getFormatting().getPrefix().contains(" ") || t.getFormatting().getPrefix().contains("\t"));
+        return t != null && WhitespaceChecks.containsNonLinebreakWhitespace(t.getFormatting().getPrefix());
     }
 }
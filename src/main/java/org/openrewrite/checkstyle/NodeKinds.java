@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaRefactorVisitor;
+import org.openrewrite.java.tree.J;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Node kinds as bits of a {@code long}, and summaries of which kinds each subtree of a compilation unit contains.
+ * A visitor that declares the kinds it fixes can use these to skip subtrees that contain none of them. Masks and
+ * summaries are only comparable when they come from the same instance, and the visitors all use
+ * {@link #shared()}.
+ */
+final class NodeKinds {
+    static final long ALL = -1L;
+
+    private static final NodeKinds shared = new NodeKinds();
+
+    private final AtomicInteger nextBit = new AtomicInteger();
+
+    /**
+     * Bits are handed out as kinds are first seen, and any kinds beyond the 63rd share the last bit.
+     */
+    private final ClassValue<Long> bits = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> kind) {
+            return 1L << Math.min(nextBit.getAndIncrement(), 63);
+        }
+    };
+
+    /**
+     * The summary of the compilation unit last summarized on each thread. The visitors fixing a compilation unit
+     * run one after another on the same thread, so they share its summary until one of them changes it, and no
+     * thread can evict the summary another thread is using.
+     */
+    private final ThreadLocal<Summary> lastSummary = new ThreadLocal<>();
+
+    NodeKinds() {
+    }
+
+    static NodeKinds shared() {
+        return shared;
+    }
+
+    long of(Class<?> kind) {
+        return bits.get(kind);
+    }
+
+    long of(@Nullable Iterable<Class<? extends J>> kinds) {
+        if (kinds == null) {
+            return ALL;
+        }
+        long mask = 0;
+        for (Class<? extends J> kind : kinds) {
+            mask |= of(kind);
+        }
+        return mask;
+    }
+
+    /**
+     * Trees are immutable, so a node that is still the same instance still has the same subtree. Nodes are
+     * summarized by identity, and nodes that a visitor creates or changes during its visit have no summary. The
+     * caller keeps the summary for as long as its visit lasts.
+     *
+     * @return The kinds in the subtree of each node, including the node itself.
+     */
+    Map<Tree, Long> summarize(J.CompilationUnit cu) {
+        Summary summary = lastSummary.get();
+        if (summary == null || summary.cu != cu) {
+            Summarizer summarizer = new Summarizer();
+            summarizer.visit(cu);
+            summary = new Summary(cu, summarizer.summaries);
+            lastSummary.set(summary);
+        }
+        return summary.summaries;
+    }
+
+    /**
+     * @return {@code false} only if {@code tree} is known to contain none of the kinds in {@code mask}.
+     */
+    static boolean mayContain(@Nullable Map<Tree, Long> summaries, Tree tree, long mask) {
+        if (mask == ALL || summaries == null) {
+            return true;
+        }
+        Long contains = summaries.get(tree);
+        return contains == null || (contains & mask) != 0;
+    }
+
+    private static class Summary {
+        private final J.CompilationUnit cu;
+        private final Map<Tree, Long> summaries;
+
+        private Summary(J.CompilationUnit cu, Map<Tree, Long> summaries) {
+            this.cu = cu;
+            this.summaries = summaries;
+        }
+    }
+
+    private class Summarizer extends JavaRefactorVisitor {
+        private final Map<Tree, Long> summaries = new IdentityHashMap<>();
+
+        /**
+         * The kinds found so far among the descendants of the node being visited.
+         */
+        private long below;
+
+        @Override
+        public J visit(@Nullable Tree tree) {
+            if (tree == null) {
+                return super.visit(tree);
+            }
+
+            long above = below;
+            below = 0;
+            J j = super.visit(tree);
+            long contains = below | of(tree.getClass());
+            summaries.put(tree, contains);
+            below = above | contains;
+            return j;
+        }
+    }
+}
@@ -24,9 +24,7 @@ import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.TypeTree;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,7 +33,7 @@ import static org.openrewrite.Formatting.*;
 import static org.openrewrite.checkstyle.policy.OperatorToken.*;
 
 @AutoConfigure
-public class OperatorWrap extends CheckstyleRefactorVisitor {
+public class OperatorWrap extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private static final Set<OperatorToken> DEFAULT_TOKENS = Stream.of(
             QUESTION,
             COLON,
@@ -62,13 +60,71 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
             LITERAL_INSTANCEOF
     ).collect(toSet());
 
+    private static final Map<Class<? extends J.Binary.Operator>, OperatorToken> BINARY_OPERATOR_TOKENS = new HashMap<>();
+
+    static {
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Division.class, DIV);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Multiplication.class, STAR);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Addition.class, PLUS);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Subtraction.class, MINUS);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Modulo.class, MOD);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.RightShift.class, SR);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.LeftShift.class, SL);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.UnsignedRightShift.class, BSR);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Equal.class, EQUAL);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.NotEqual.class, NOT_EQUAL);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.GreaterThan.class, GT);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.GreaterThanOrEqual.class, GE);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.LessThan.class, LT);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.LessThanOrEqual.class, LE);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.BitAnd.class, BAND);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.BitXor.class, BXOR);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.BitOr.class, BOR);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.And.class, LAND);
+        BINARY_OPERATOR_TOKENS.put(J.Binary.Operator.Or.class, LOR);
+    }
+
+    private static final Map<Class<? extends J.AssignOp.Operator>, OperatorToken> ASSIGN_OPERATOR_TOKENS = new HashMap<>();
+
+    static {
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Addition.class, PLUS_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Subtraction.class, MINUS_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Multiplication.class, STAR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Division.class, DIV_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Modulo.class, MOD_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.RightShift.class, SR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.LeftShift.class, SL_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.UnsignedRightShift.class, BSR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.BitAnd.class, BAND_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.BitXor.class, BXOR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.BitOr.class, BOR_ASSIGN);
+    }
+
     private WrapPolicy option;
     private Set<OperatorToken> tokens;
 
+    /**
+     * The binary and assignment operators whose tokens are configured, so that each expression costs one lookup.
+     */
+    private Set<Class<?>> wrappedBinaryOperators;
+    private Set<Class<?>> wrappedAssignOperators;
+
     @Override
     protected void configure(Module m) {
-        this.option = m.propAsOptionValue(WrapPolicy::valueOf, WrapPolicy.NL);
+        this.option = m.propAsOptionValue(WrapPolicy.class, WrapPolicy.NL);
         this.tokens = m.propAsTokens(OperatorToken.class, DEFAULT_TOKENS);
+        this.wrappedBinaryOperators = configured(BINARY_OPERATOR_TOKENS);
+        this.wrappedAssignOperators = configured(ASSIGN_OPERATOR_TOKENS);
+    }
+
+    private Set<Class<?>> configured(Map<? extends Class<?>, OperatorToken> operatorTokens) {
+        Set<Class<?>> operators = new HashSet<>();
+        operatorTokens.forEach((operator, token) -> {
+            if (tokens.contains(token)) {
+                operators.add(operator);
+            }
+        });
+        return operators;
     }
 
     @Override
@@ -76,31 +132,48 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
         return Tags.of("policy", option.toString());
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Assign.class, J.AssignOp.class, J.Binary.class, J.InstanceOf.class,
+                J.MemberReference.class, J.Ternary.class, J.TypeParameter.class, J.VariableDecls.NamedVar.class);
+    }
+
+    /**
+     * The rule only reads the formatting around each operator, which fixing the operands doesn't change, so the
+     * visited node stands in for the original one.
+     */
+    @Override
+    public J visitFused(J j) {
+        if (j instanceof J.Binary) {
+            return wrapBinary((J.Binary) j);
+        } else if (j instanceof J.TypeParameter) {
+            return wrapTypeParameter((J.TypeParameter) j);
+        } else if (j instanceof J.InstanceOf) {
+            return wrapInstanceOf((J.InstanceOf) j);
+        } else if (j instanceof J.Ternary) {
+            return wrapTernary((J.Ternary) j);
+        } else if (j instanceof J.AssignOp) {
+            return wrapAssignOp((J.AssignOp) j);
+        } else if (j instanceof J.MemberReference) {
+            return wrapMemberReference((J.MemberReference) j);
+        } else if (j instanceof J.Assign) {
+            return wrapAssign((J.Assign) j);
+        } else if (j instanceof J.VariableDecls.NamedVar) {
+            return wrapVariable((J.VariableDecls.NamedVar) j);
+        }
+        return j;
+    }
+
     @Override
     public J visitBinary(J.Binary binary) {
-        J.Binary b = refactor(binary, super::visitBinary);
-        J.Binary.Operator op = binary.getOperator();
+        return visitFused(refactor(binary, super::visitBinary));
+    }
 
-        if ((tokens.contains(DIV) && op instanceof J.Binary.Operator.Division) ||
-                (tokens.contains(STAR) && op instanceof J.Binary.Operator.Multiplication) ||
-                (tokens.contains(PLUS) && op instanceof J.Binary.Operator.Addition) ||
-                (tokens.contains(MINUS) && op instanceof J.Binary.Operator.Subtraction) ||
-                (tokens.contains(MOD) && op instanceof J.Binary.Operator.Modulo) ||
-                (tokens.contains(SR) && op instanceof J.Binary.Operator.RightShift) ||
-                (tokens.contains(SL) && op instanceof J.Binary.Operator.LeftShift) ||
-                (tokens.contains(BSR) && op instanceof J.Binary.Operator.UnsignedRightShift) ||
-                (tokens.contains(EQUAL) && op instanceof J.Binary.Operator.Equal) ||
-                (tokens.contains(NOT_EQUAL) && op instanceof J.Binary.Operator.NotEqual) ||
-                (tokens.contains(GT) && op instanceof J.Binary.Operator.GreaterThan) ||
-                (tokens.contains(GE) && op instanceof J.Binary.Operator.GreaterThanOrEqual) ||
-                (tokens.contains(LT) && op instanceof J.Binary.Operator.LessThan) ||
-                (tokens.contains(LE) && op instanceof J.Binary.Operator.LessThanOrEqual) ||
-                (tokens.contains(BAND) && op instanceof J.Binary.Operator.BitAnd) ||
-                (tokens.contains(BXOR) && op instanceof J.Binary.Operator.BitXor) ||
-                (tokens.contains(BOR) && op instanceof J.Binary.Operator.BitOr) ||
-                (tokens.contains(LAND) && op instanceof J.Binary.Operator.And) ||
-                (tokens.contains(LOR) && op instanceof J.Binary.Operator.Or)) {
+    private J.Binary wrapBinary(J.Binary binary) {
+        J.Binary b = binary;
+        J.Binary.Operator op = binary.getOperator();
 
+        if (wrappedBinaryOperators.contains(op.getClass())) {
             if (option == WrapPolicy.NL) {
                 if (binary.getRight().getFormatting().getPrefix().contains("\n")) {
                     b = b.withOperator(b.getOperator().withPrefix(b.getRight().getFormatting().getPrefix()))
@@ -118,7 +191,11 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitTypeParameter(J.TypeParameter typeParam) {
-        J.TypeParameter t = refactor(typeParam, super::visitTypeParameter);
+        return visitFused(refactor(typeParam, super::visitTypeParameter));
+    }
+
+    private J.TypeParameter wrapTypeParameter(J.TypeParameter typeParam) {
+        J.TypeParameter t = typeParam;
 
         if (tokens.contains(TYPE_EXTENSION_AND) && t.getBounds() != null) {
             List<TypeTree> types = new ArrayList<>(t.getBounds().getTypes());
@@ -155,7 +232,11 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitInstanceOf(J.InstanceOf instanceOf) {
-        J.InstanceOf i = refactor(instanceOf, super::visitInstanceOf);
+        return visitFused(refactor(instanceOf, super::visitInstanceOf));
+    }
+
+    private J.InstanceOf wrapInstanceOf(J.InstanceOf instanceOf) {
+        J.InstanceOf i = instanceOf;
 
         if (tokens.contains(LITERAL_INSTANCEOF)) {
             if (option == WrapPolicy.NL) {
@@ -174,7 +255,11 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitTernary(J.Ternary ternary) {
-        J.Ternary t = refactor(ternary, super::visitTernary);
+        return visitFused(refactor(ternary, super::visitTernary));
+    }
+
+    private J.Ternary wrapTernary(J.Ternary ternary) {
+        J.Ternary t = ternary;
 
         if (tokens.contains(QUESTION)) {
             if (option == WrapPolicy.NL) {
@@ -205,21 +290,14 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitAssignOp(J.AssignOp assignOp) {
-        J.AssignOp a = refactor(assignOp, super::visitAssignOp);
-        J.AssignOp.Operator op = assignOp.getOperator();
+        return visitFused(refactor(assignOp, super::visitAssignOp));
+    }
 
-        if ((tokens.contains(PLUS_ASSIGN) && op instanceof J.AssignOp.Operator.Addition) ||
-                (tokens.contains(MINUS_ASSIGN) && op instanceof J.AssignOp.Operator.Subtraction) ||
-                (tokens.contains(STAR_ASSIGN) && op instanceof J.AssignOp.Operator.Multiplication) ||
-                (tokens.contains(DIV_ASSIGN) && op instanceof J.AssignOp.Operator.Division) ||
-                (tokens.contains(MOD_ASSIGN) && op instanceof J.AssignOp.Operator.Modulo) ||
-                (tokens.contains(SR_ASSIGN) && op instanceof J.AssignOp.Operator.RightShift) ||
-                (tokens.contains(SL_ASSIGN) && op instanceof J.AssignOp.Operator.LeftShift) ||
-                (tokens.contains(BSR_ASSIGN) && op instanceof J.AssignOp.Operator.UnsignedRightShift) ||
-                (tokens.contains(BAND_ASSIGN) && op instanceof J.AssignOp.Operator.BitAnd) ||
-                (tokens.contains(BXOR_ASSIGN) && op instanceof J.AssignOp.Operator.BitXor) ||
-                (tokens.contains(BOR_ASSIGN) && op instanceof J.AssignOp.Operator.BitOr)) {
+    private J.AssignOp wrapAssignOp(J.AssignOp assignOp) {
+        J.AssignOp a = assignOp;
+        J.AssignOp.Operator op = assignOp.getOperator();
 
+        if (wrappedAssignOperators.contains(op.getClass())) {
             if (option == WrapPolicy.NL) {
                 if (assignOp.getAssignment().getFormatting().getPrefix().contains("\n")) {
                     a = a.withOperator(a.getOperator().withPrefix(a.getAssignment().getFormatting().getPrefix()))
@@ -236,7 +314,11 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitMemberReference(J.MemberReference memberRef) {
-        J.MemberReference m = refactor(memberRef, super::visitMemberReference);
+        return visitFused(refactor(memberRef, super::visitMemberReference));
+    }
+
+    private J.MemberReference wrapMemberReference(J.MemberReference memberRef) {
+        J.MemberReference m = memberRef;
 
         if (tokens.contains(METHOD_REF)) {
             if (option == WrapPolicy.NL) {
@@ -255,7 +337,11 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitAssign(J.Assign assign) {
-        J.Assign a = refactor(assign, super::visitAssign);
+        return visitFused(refactor(assign, super::visitAssign));
+    }
+
+    private J.Assign wrapAssign(J.Assign assign) {
+        J.Assign a = assign;
 
         if (tokens.contains(ASSIGN)) {
             if (option == WrapPolicy.NL) {
@@ -274,7 +360,11 @@ public class OperatorWrap extends CheckstyleRefactorVisitor {
 
     @Override
     public J visitVariable(J.VariableDecls.NamedVar variable) {
-        J.VariableDecls.NamedVar v = refactor(variable, super::visitVariable);
+        return visitFused(refactor(variable, super::visitVariable));
+    }
+
+    private J.VariableDecls.NamedVar wrapVariable(J.VariableDecls.NamedVar variable) {
+        J.VariableDecls.NamedVar v = variable;
 
         if (tokens.contains(ASSIGN) && variable.getInitializer() != null) {
             if (option == WrapPolicy.NL) {
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.J;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A configuration file that visitors set to reload on change share, so that they all see the same version of it.
+ * When the file or its suppressions file changes, the new version is loaded on a background thread and swapped in
+ * once it is complete, so no visit waits for it. Each thread pins the version in use when it begins visiting a
+ * compilation unit, and every visitor of that compilation unit, in every cycle of its refactoring, uses the
+ * pinned version, so that no refactoring mixes checks configured from two versions.
+ */
+final class ReloadableConfiguration {
+    private static final int MAX_RELOADABLE_CONFIGURATIONS = 32;
+
+    private static final Map<List<Object>, ReloadableConfiguration> reloadableConfigurations =
+            new LinkedHashMap<List<Object>, ReloadableConfiguration>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, ReloadableConfiguration> eldest) {
+                    return size() > MAX_RELOADABLE_CONFIGURATIONS;
+                }
+            };
+
+    private static final ExecutorService reloader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rewrite-checkstyle-config-reloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File file;
+
+    @Nullable
+    private final Map<String, Object> properties;
+
+    @Nullable
+    private final Path baseDir;
+
+    private volatile Version current;
+
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    private final ThreadLocal<Pin> pinned = new ThreadLocal<>();
+
+    private ReloadableConfiguration(File file, @Nullable Map<String, Object> properties, @Nullable Path baseDir,
+                                    CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration) {
+        this.file = file;
+        this.properties = properties;
+        this.baseDir = baseDir;
+        this.current = new Version(loadedConfiguration,
+                ConfigurationWatcher.generation(file) + ConfigurationWatcher.generation(loadedConfiguration.suppressions.file));
+    }
+
+    /**
+     * @param loadedConfiguration The configuration as just loaded from {@code file}, which becomes the current
+     *                            version if no visitor has asked for this file before.
+     * @return The configuration shared by every visitor of the same file, properties and base directory.
+     */
+    static ReloadableConfiguration of(File file, @Nullable Map<String, Object> properties, @Nullable Path baseDir,
+                                      CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration) {
+        Map<String, String> resolvedProperties = new HashMap<>();
+        if (properties != null) {
+            properties.forEach((name, value) -> resolvedProperties.put(name, value == null ? null : value.toString()));
+        }
+        List<Object> key = Arrays.asList(file.getAbsoluteFile(), resolvedProperties, baseDir);
+        synchronized (reloadableConfigurations) {
+            return reloadableConfigurations.computeIfAbsent(key,
+                    k -> new ReloadableConfiguration(file, properties, baseDir, loadedConfiguration));
+        }
+    }
+
+    /**
+     * @return The current version, or {@code null} if the last reload failed.
+     */
+    @Nullable
+    CheckstyleRefactorVisitor.LoadedConfiguration current() {
+        return current.loadedConfiguration;
+    }
+
+    /**
+     * @return The version pinned for the compilation unit by this thread, pinning the current version if it is the
+     * first time this thread asks about it. {@code null} if the last reload failed.
+     */
+    @Nullable
+    CheckstyleRefactorVisitor.LoadedConfiguration pin(J.CompilationUnit cu) {
+        Pin pin = pinned.get();
+        if (pin == null || !pin.compilationUnitId.equals(cu.getId())) {
+            reloadIfChanged();
+            pin = new Pin(cu.getId(), current);
+            pinned.set(pin);
+        }
+        return pin.version.loadedConfiguration;
+    }
+
+    private void reloadIfChanged() {
+        Version version = current;
+        if (generation(version) == version.generation || !reloading.compareAndSet(false, true)) {
+            return;
+        }
+
+        reloader.execute(() -> {
+            try {
+                // the configuration file's generation is read before it is loaded, so that a change made while it
+                // is being loaded is reloaded again
+                long configGeneration = ConfigurationWatcher.generation(file);
+                CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration;
+                try (InputStream inputStream = new FileInputStream(file)) {
+                    loadedConfiguration = CheckstyleRefactorVisitor.loadConfiguration(inputStream, properties, baseDir);
+                } catch (IOException | CheckstyleException e) {
+                    // visitors fix nothing until the file changes again
+                    current = new Version(null, configGeneration);
+                    return;
+                }
+                current = new Version(loadedConfiguration,
+                        configGeneration + ConfigurationWatcher.generation(loadedConfiguration.suppressions.file));
+            } finally {
+                reloading.set(false);
+            }
+        });
+    }
+
+    private long generation(Version version) {
+        return ConfigurationWatcher.generation(file) + ConfigurationWatcher.generation(
+                version.loadedConfiguration == null ? null : version.loadedConfiguration.suppressions.file);
+    }
+
+    private static class Version {
+        @Nullable
+        final CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration;
+
+        /**
+         * The sum of the generations of the configuration file and its suppressions file that this version was
+         * loaded at.
+         */
+        final long generation;
+
+        Version(@Nullable CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration, long generation) {
+            this.loadedConfiguration = loadedConfiguration;
+            this.generation = generation;
+        }
+    }
+
+    private static class Pin {
+        final UUID compilationUnitId;
+        final Version version;
+
+        Pin(UUID compilationUnitId, Version version) {
+            this.compilationUnitId = compilationUnitId;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import org.openrewrite.Change;
+import org.openrewrite.Refactor;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaRefactorVisitor;
+import org.openrewrite.java.tree.J;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Loads a Checkstyle configuration once and builds the visitors for just those checks that it enables, so that
+ * the cost of starting up doesn't grow with the number of checks this project knows how to fix.
+ */
+public class RewriteCheckstyle {
+    private static final Map<String, Supplier<CheckstyleRefactorVisitor>> visitorsByModuleName = new LinkedHashMap<>();
+
+    static {
+        register("CovariantEquals", CovariantEquals::new);
+        register("DefaultComesLast", DefaultComesLast::new);
+        register("EmptyBlock", EmptyBlock::new);
+        register("EmptyForInitializerPad", EmptyForInitializerPad::new);
+        register("EmptyForIteratorPad", EmptyForIteratorPad::new);
+        register("EmptyStatement", EmptyStatement::new);
+        register("EqualsAvoidsNull", EqualsAvoidsNull::new);
+        register("ExplicitInitialization", ExplicitInitialization::new);
+        register("FallThrough", FallThrough::new);
+        register("FinalClass", FinalClass::new);
+        register("FinalLocalVariable", FinalLocalVariable::new);
+        register("GenericWhitespace", GenericWhitespace::new);
+        register("HiddenField", HiddenField::new);
+        register("HideUtilityClassConstructor", HideUtilityClassConstructor::new);
+        register("LeftCurly", LeftCurly::new);
+        register("MethodParamPad", MethodParamPad::new);
+        register("MultipleVariableDeclarations", MultipleVariableDeclarations::new);
+        register("NeedBraces", NeedBraces::new);
+        register("NoFinalizer", NoFinalizer::new);
+        register("NoWhitespaceAfter", NoWhitespaceAfter::new);
+        register("NoWhitespaceBefore", NoWhitespaceBefore::new);
+        register("OperatorWrap", OperatorWrap::new);
+        register("RightCurly", RightCurly::new);
+        register("SimplifyBooleanExpression", SimplifyBooleanExpression::new);
+        register("SimplifyBooleanReturn", SimplifyBooleanReturn::new);
+        register("StaticVariableName", StaticVariableName::new);
+        register("StringLiteralEquality", StringLiteralEquality::new);
+        register("TypecastParenPad", TypecastParenPad::new);
+        register("UnnecessaryParentheses", UnnecessaryParentheses::new);
+    }
+
+    private final List<CheckstyleRefactorVisitor> visitors = new ArrayList<>();
+
+    private CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration;
+
+    private TextPrefilter prefilter;
+
+    @Nullable
+    private File suppressionsFile;
+
+    /**
+     * The configuration file these visitors were built from, with the properties and base directory used to
+     * load it, when it can be reloaded.
+     */
+    @Nullable
+    private Path configFile;
+
+    @Nullable
+    private Map<String, Object> properties;
+
+    @Nullable
+    private Path baseDir;
+
+    private boolean reloadOnChange;
+    private long reloadGeneration;
+    private int maxPasses = CheckstyleRefactorVisitor.DEFAULT_MAX_PASSES;
+
+    /**
+     * The visitors that the last {@link #apply(Refactor)} fused each run of adjacent fusible visitors into.
+     */
+    private List<FusedVisitor> fused = Collections.emptyList();
+
+    public RewriteCheckstyle(InputStream checkstyleConfig) {
+        this(checkstyleConfig, null);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the configuration, or the suppressions file it refers to, can't be loaded.
+     */
+    public RewriteCheckstyle(InputStream checkstyleConfig, @Nullable Map<String, Object> properties) {
+        this(checkstyleConfig, properties, null);
+    }
+
+    /**
+     * @param baseDir The directory against which a relative suppressions file is resolved, or {@code null} for the
+     *                working directory of this process.
+     * @throws IllegalArgumentException if the configuration, or the suppressions file it refers to, can't be loaded.
+     */
+    public RewriteCheckstyle(InputStream checkstyleConfig, @Nullable Map<String, Object> properties,
+                             @Nullable Path baseDir) {
+        this(load(checkstyleConfig, properties, baseDir));
+    }
+
+    /**
+     * Loads a configuration file by way of a binary snapshot kept next to it, which is written the first time the
+     * file is loaded and used until the file, the properties or the suppressions file it refers to change.
+     *
+     * @throws IllegalArgumentException if the configuration, or the suppressions file it refers to, can't be loaded.
+     */
+    public RewriteCheckstyle(Path checkstyleConfigFile, @Nullable Map<String, Object> properties) {
+        this(checkstyleConfigFile, properties, null);
+    }
+
+    /**
+     * @param baseDir The directory against which a relative suppressions file is resolved, or {@code null} for the
+     *                working directory of this process.
+     * @throws IllegalArgumentException if the configuration, or the suppressions file it refers to, can't be loaded.
+     */
+    public RewriteCheckstyle(Path checkstyleConfigFile, @Nullable Map<String, Object> properties,
+                             @Nullable Path baseDir) {
+        this(loadWithSnapshot(checkstyleConfigFile, properties, baseDir));
+        this.configFile = checkstyleConfigFile;
+        this.properties = properties;
+        this.baseDir = baseDir;
+    }
+
+    private RewriteCheckstyle(CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration) {
+        configure(loadedConfiguration);
+    }
+
+    private void configure(CheckstyleRefactorVisitor.LoadedConfiguration loadedConfiguration) {
+        this.loadedConfiguration = loadedConfiguration;
+        visitors.clear();
+        for (Map.Entry<String, Supplier<CheckstyleRefactorVisitor>> visitorByModuleName : visitorsByModuleName.entrySet()) {
+            if (loadedConfiguration.modulesByName.containsKey(visitorByModuleName.getKey())) {
+                CheckstyleRefactorVisitor visitor = visitorByModuleName.getValue().get();
+                if (visitor.configure(loadedConfiguration).isValid()) {
+                    visitors.add(visitor);
+                }
+            }
+        }
+
+        for (CheckstyleRefactorVisitor visitor : visitors) {
+            visitor.setMaxPasses(maxPasses);
+        }
+
+        prefilter = new TextPrefilter(visitors);
+        suppressionsFile = loadedConfiguration.suppressions.file;
+    }
+
+    /**
+     * Visitors hold cursor and andThen state while visiting, so each thread needs its own. A copy builds new
+     * visitors from the configuration this instance already loaded, with its options, rather than parsing the
+     * configuration and its suppressions again, and its visitors share the modules that memoize parsed properties.
+     *
+     * @return A new instance with its own visitors, for use on another thread.
+     */
+    public RewriteCheckstyle copy() {
+        RewriteCheckstyle copy = new RewriteCheckstyle(loadedConfiguration);
+        copy.configFile = configFile;
+        copy.properties = properties;
+        copy.baseDir = baseDir;
+        copy.reloadOnChange = reloadOnChange;
+        copy.reloadGeneration = reloadGeneration;
+        copy.setMaxPasses(maxPasses);
+        return copy;
+    }
+
+    /**
+     * When set, and these visitors were built from a configuration file, they are rebuilt before the next
+     * {@link #apply(Refactor)} or {@link #mightApplyTo(ByteBuffer)} whenever that file or its suppressions file
+     * changes. A configuration that no longer loads leaves no visitors until the file changes again.
+     */
+    public void setReloadOnChange(boolean reloadOnChange) {
+        this.reloadOnChange = reloadOnChange;
+        if (reloadOnChange) {
+            reloadGeneration = configurationGeneration();
+        }
+    }
+
+    private void reloadIfChanged() {
+        if (!reloadOnChange || configFile == null) {
+            return;
+        }
+
+        long generation = configurationGeneration();
+        if (generation != reloadGeneration) {
+            try {
+                configure(loadWithSnapshot(configFile, properties, baseDir));
+            } catch (IllegalArgumentException e) {
+                visitors.clear();
+                prefilter = new TextPrefilter(visitors);
+            }
+            // the suppressions file may be a different one now
+            reloadGeneration = configurationGeneration();
+        }
+    }
+
+    private long configurationGeneration() {
+        return configFile == null ? 0 :
+                ConfigurationWatcher.generation(configFile.toFile()) + ConfigurationWatcher.generation(suppressionsFile);
+    }
+
+    private static CheckstyleRefactorVisitor.LoadedConfiguration load(InputStream checkstyleConfig,
+                                                                      @Nullable Map<String, Object> properties,
+                                                                      @Nullable Path baseDir) {
+        try {
+            return CheckstyleRefactorVisitor.loadConfiguration(checkstyleConfig, properties, baseDir);
+        } catch (CheckstyleException e) {
+            throw new IllegalArgumentException("Checkstyle configuration could not be loaded", e);
+        }
+    }
+
+    private static CheckstyleRefactorVisitor.LoadedConfiguration loadWithSnapshot(Path checkstyleConfigFile,
+                                                                                  @Nullable Map<String, Object> properties,
+                                                                                  @Nullable Path baseDir) {
+        try {
+            return ConfigurationSnapshot.load(checkstyleConfigFile, properties, baseDir);
+        } catch (IOException | CheckstyleException e) {
+            throw new IllegalArgumentException("Checkstyle configuration could not be loaded", e);
+        }
+    }
+
+    private static void register(String moduleName, Supplier<CheckstyleRefactorVisitor> visitor) {
+        visitorsByModuleName.put(moduleName, visitor);
+    }
+
+    /**
+     * @param source The bytes of a source file, such as a memory-mapped file, from its position to its limit.
+     * @return {@code false} only if none of the visitors could have anything to fix in the source file, which then
+     * needn't be parsed.
+     */
+    public boolean mightApplyTo(ByteBuffer source) {
+        reloadIfChanged();
+        return prefilter.mightApplyTo(source);
+    }
+
+    /**
+     * @param maxPasses The most passes over a compilation unit that any one visitor will make.
+     * @see CheckstyleRefactorVisitor#setMaxPasses(int)
+     */
+    public void setMaxPasses(int maxPasses) {
+        this.maxPasses = maxPasses;
+        for (CheckstyleRefactorVisitor visitor : visitors) {
+            visitor.setMaxPasses(maxPasses);
+        }
+    }
+
+    /**
+     * @return The suppressions file that the configuration refers to, if any.
+     */
+    @Nullable
+    public File getSuppressionsFile() {
+        return suppressionsFile;
+    }
+
+    /**
+     * @return {@code false} if any visitor was still changing the compilation unit it last visited when it reached
+     * its maximum number of passes, so that the result may not be fully fixed.
+     * @see #setMaxPasses(int)
+     */
+    public boolean isConverged() {
+        for (CheckstyleRefactorVisitor visitor : visitors) {
+            if (visitor.isPassesExhausted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<CheckstyleRefactorVisitor> getVisitors() {
+        return visitors;
+    }
+
+    /**
+     * Visitors run in the order they were registered. Each run of adjacent visitors that implement
+     * {@link FusibleVisitor} makes a single traversal together, fixing each node in that same order, so the result
+     * is the same as running them one after the other.
+     */
+    public Refactor<J.CompilationUnit, J> apply(Refactor<J.CompilationUnit, J> refactor) {
+        List<JavaRefactorVisitor> ordered = orderedVisitors();
+
+        // suppressed lines refer to the source as it was parsed, so every visitor, in every cycle and pass, matches
+        // them against the lines of the original, which are only indexed if some check is suppressed in it
+        OriginalNodeLines originalNodeLines = new OriginalNodeLines(refactor.getOriginal());
+        for (CheckstyleRefactorVisitor visitor : visitors) {
+            visitor.setOriginalNodeLines(originalNodeLines);
+        }
+
+        for (JavaRefactorVisitor visitor : ordered) {
+            refactor = refactor.visit(visitor);
+        }
+        return refactor;
+    }
+
+    List<JavaRefactorVisitor> orderedVisitors() {
+        reloadIfChanged();
+
+        List<JavaRefactorVisitor> ordered = new ArrayList<>(visitors.size());
+        List<FusedVisitor> fused = new ArrayList<>();
+        List<CheckstyleRefactorVisitor> run = new ArrayList<>();
+        for (CheckstyleRefactorVisitor visitor : visitors) {
+            if (visitor instanceof FusibleVisitor) {
+                run.add(visitor);
+            } else {
+                addRun(run, ordered, fused);
+                run = new ArrayList<>();
+                ordered.add(visitor);
+            }
+        }
+        addRun(run, ordered, fused);
+
+        this.fused = fused;
+        return ordered;
+    }
+
+    private static void addRun(List<CheckstyleRefactorVisitor> run, List<JavaRefactorVisitor> ordered,
+                               List<FusedVisitor> fused) {
+        if (run.size() > 1) {
+            FusedVisitor fusedRun = new FusedVisitor(run);
+            fused.add(fusedRun);
+            ordered.add(fusedRun);
+        } else {
+            ordered.addAll(run);
+        }
+    }
+
+    private static class OriginalNodeLines implements Supplier<Map<UUID, int[]>> {
+        private final J.CompilationUnit original;
+
+        @Nullable
+        private Map<UUID, int[]> nodeLines;
+
+        OriginalNodeLines(J.CompilationUnit original) {
+            this.original = original;
+        }
+
+        @Override
+        public Map<UUID, int[]> get() {
+            if (nodeLines == null) {
+                nodeLines = Suppressions.nodeLines(original);
+            }
+            return nodeLines;
+        }
+    }
+
+    /**
+     * @return The rules that made changes, with the checks that the last {@link #apply(Refactor)} ran together in
+     * one traversal reported individually rather than as a single rule.
+     */
+    public Set<String> getRulesThatMadeChanges(Change<J.CompilationUnit> change) {
+        List<FusedVisitor> fused = this.fused;
+        if (fused.isEmpty() || !change.getRulesThatMadeChanges().contains(fused.get(0).getName())) {
+            return change.getRulesThatMadeChanges();
+        }
+
+        // every fused visitor has the same name, so the rule stands for all of those that made changes
+        Set<String> rules = new LinkedHashSet<>();
+        for (String rule : change.getRulesThatMadeChanges()) {
+            if (rule.equals(fused.get(0).getName())) {
+                for (FusedVisitor fusedRun : fused) {
+                    rules.addAll(fusedRun.getDelegatesThatMadeChanges());
+                }
+            } else {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+}
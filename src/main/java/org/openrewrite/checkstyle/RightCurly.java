@@ -29,13 +29,14 @@ import java.util.stream.Stream;
 import static java.util.stream.Collectors.toSet;
 
 @AutoConfigure
-public class RightCurly extends CheckstyleRefactorVisitor {
+public class RightCurly extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private static final Set<Token> DEFAULT_TOKENS = Stream.of(
             Token.LITERAL_TRY, Token.LITERAL_CATCH, Token.LITERAL_FINALLY, Token.LITERAL_IF, Token.LITERAL_ELSE
     ).collect(toSet());
 
     private RightCurlyPolicy option;
     private Set<Token> tokens;
+    private long tokenMask;
 
     public RightCurly() {
         setCursoringOn();
@@ -43,18 +44,55 @@ public class RightCurly extends CheckstyleRefactorVisitor {
 
     @Override
     protected void configure(Module m) {
-        this.option = m.propAsOptionValue(RightCurlyPolicy::valueOf, RightCurlyPolicy.SAME);
+        this.option = m.propAsOptionValue(RightCurlyPolicy.class, RightCurlyPolicy.SAME);
         this.tokens = m.propAsTokens(Token.class, DEFAULT_TOKENS);
+        this.tokenMask = Token.mask(tokens);
     }
 
-    @SuppressWarnings("ConstantConditions")
     @Override
     public J visitBlock(J.Block<J> block) {
-        J.Block<J> b = refactor(block, super::visitBlock);
+        return visitFused(refactor(block, super::visitBlock));
+    }
+
+    @Override
+    public J visitElse(J.If.Else elze) {
+        return visitFused(refactor(elze, super::visitElse));
+    }
+
+    @Override
+    public J visitFinally(J.Try.Finally finallie) {
+        return visitFused(refactor(finallie, super::visitFinally));
+    }
+
+    @Override
+    public J visitCatch(J.Try.Catch catzh) {
+        return visitFused(refactor(catzh, super::visitCatch));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public J visitFused(J j) {
+        if (j instanceof J.Block) {
+            return fixBlock((J.Block<J>) j);
+        } else if (j instanceof J.If.Else) {
+            return tokens.contains(Token.LITERAL_ELSE) && !multiBlockSatisfiesPolicy(getCursor().getTree()) ?
+                    formatMultiBlock(j) : j;
+        } else if (j instanceof J.Try.Finally) {
+            return tokens.contains(Token.LITERAL_FINALLY) && !multiBlockSatisfiesPolicy(getCursor().getTree()) ?
+                    formatMultiBlock(j) : j;
+        } else if (j instanceof J.Try.Catch) {
+            return tokens.contains(Token.LITERAL_CATCH) && !multiBlockSatisfiesPolicy(getCursor().getTree()) ?
+                    formatMultiBlock(j) : j;
+        }
+        return j;
+    }
 
+    @SuppressWarnings("ConstantConditions")
+    private J.Block<J> fixBlock(J.Block<J> b) {
+        J.Block<J> block = getCursor().getTree();
         Cursor parentCursor = getCursor().getParentOrThrow();
-        boolean tokenMatches = tokens.stream().anyMatch(t -> t.getMatcher().matches(getCursor())) ||
-                (option != RightCurlyPolicy.ALONE_OR_SINGLELINE && tokens.stream().anyMatch(t -> t.getMatcher().matches(parentCursor))) ||
+        boolean tokenMatches = Token.matchesOneOf(tokenMask, getCursor()) ||
+                (option != RightCurlyPolicy.ALONE_OR_SINGLELINE && Token.matchesOneOf(tokenMask, parentCursor)) ||
                 parentCursor.getTree() instanceof J.Block;
 
         boolean satisfiesPolicy = block.getEnd().getPrefix().contains("\n") ||
@@ -75,33 +113,6 @@ public class RightCurly extends CheckstyleRefactorVisitor {
         return b;
     }
 
-    @Override
-    public J visitElse(J.If.Else elze) {
-        J.If.Else e = refactor(elze, super::visitElse);
-        if (tokens.contains(Token.LITERAL_ELSE) && !multiBlockSatisfiesPolicy(elze)) {
-            e = formatMultiBlock(e);
-        }
-        return e;
-    }
-
-    @Override
-    public J visitFinally(J.Try.Finally finallie) {
-        J.Try.Finally f = refactor(finallie, super::visitFinally);
-        if (tokens.contains(Token.LITERAL_FINALLY) && !multiBlockSatisfiesPolicy(finallie)) {
-            f = formatMultiBlock(f);
-        }
-        return f;
-    }
-
-    @Override
-    public J visitCatch(J.Try.Catch catzh) {
-        J.Try.Catch c = refactor(catzh, super::visitCatch);
-        if (tokens.contains(Token.LITERAL_CATCH) && !multiBlockSatisfiesPolicy(catzh)) {
-            c = formatMultiBlock(c);
-        }
-        return c;
-    }
-
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     private boolean multiBlockSatisfiesPolicy(Tree blockFollower) {
         boolean isAlone = blockFollower.getFormatting().getPrefix().contains("\n");
@@ -20,6 +20,8 @@ import org.openrewrite.java.tree.Expression;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 
+import java.util.Set;
+
 import static org.openrewrite.Tree.randomId;
 
 @AutoConfigure
@@ -28,12 +30,15 @@ public class SimplifyBooleanExpression extends CheckstyleRefactorVisitor {
         setCursoringOn();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Binary.class, J.Unary.class);
+    }
+
     @Override
     public J visitCompilationUnit(J.CompilationUnit cu) {
         J.CompilationUnit c = refactor(cu, super::visitCompilationUnit);
-        if (c != cu) {
-            andThen(new SimplifyBooleanExpression());
-        }
+        convergeChanges(cu, c, SimplifyBooleanExpression::new);
         return c;
     }
 
@@ -46,8 +51,7 @@ public class SimplifyBooleanExpression extends CheckstyleRefactorVisitor {
                 return binaryLeftAndUnwrap(b);
             } else if (isLiteralFalse(b.getRight())) {
                 return binaryRightAndUnwrap(b);
-            } else if (b.getLeft().printTrimmed().replaceAll("\\s", "").equals(
-                    b.getRight().printTrimmed().replaceAll("\\s", ""))) {
+            } else if (StructuralEquality.equal(b.getLeft(), b.getRight())) {
                 return binaryLeftAndUnwrap(b);
             }
         } else if (b.getOperator() instanceof J.Binary.Operator.Or) {
@@ -55,8 +59,7 @@ public class SimplifyBooleanExpression extends CheckstyleRefactorVisitor {
                 return binaryLeftAndUnwrap(b);
             } else if (isLiteralTrue(b.getRight())) {
                 return binaryRightAndUnwrap(b);
-            } else if (b.getLeft().printTrimmed().replaceAll("\\s", "").equals(
-                    b.getRight().printTrimmed().replaceAll("\\s", ""))) {
+            } else if (StructuralEquality.equal(b.getLeft(), b.getRight())) {
                 return binaryLeftAndUnwrap(b);
             }
         } else if (b.getOperator() instanceof J.Binary.Operator.Equal) {
@@ -83,15 +86,15 @@ public class SimplifyBooleanExpression extends CheckstyleRefactorVisitor {
         if (u.getOperator() instanceof J.Unary.Operator.Not) {
             if (isLiteralTrue(u.getExpr())) {
                 maybeUnwrapParentheses();
-                return new J.Literal(randomId(), false, "false",
-                        JavaType.Primitive.Boolean, u.getFormatting());
+                return changed(new J.Literal(randomId(), false, "false",
+                        JavaType.Primitive.Boolean, u.getFormatting()));
             } else if (isLiteralFalse(u.getExpr())) {
                 maybeUnwrapParentheses();
-                return new J.Literal(randomId(), true, "true",
-                        JavaType.Primitive.Boolean, u.getFormatting());
+                return changed(new J.Literal(randomId(), true, "true",
+                        JavaType.Primitive.Boolean, u.getFormatting()));
             } else if (u.getExpr() instanceof J.Unary && ((J.Unary) u.getExpr()).getOperator() instanceof J.Unary.Operator.Not) {
                 maybeUnwrapParentheses();
-                return ((J.Unary) u.getExpr()).getExpr().withFormatting(u.getFormatting());
+                return changed(((J.Unary) u.getExpr()).getExpr().withFormatting(u.getFormatting()));
             }
         }
 
@@ -100,12 +103,12 @@ public class SimplifyBooleanExpression extends CheckstyleRefactorVisitor {
 
     private Expression binaryLeftAndUnwrap(J.Binary binary) {
         maybeUnwrapParentheses();
-        return binary.getLeft().withFormatting(binary.getFormatting());
+        return changed(binary.getLeft().withFormatting(binary.getFormatting()));
     }
 
     private Expression binaryRightAndUnwrap(J.Binary binary) {
         maybeUnwrapParentheses(getCursor().getParent());
-        return binary.getRight().withFormatting(binary.getFormatting());
+        return changed(binary.getRight().withFormatting(binary.getFormatting()));
     }
 
     private void maybeUnwrapParentheses() {
@@ -26,8 +26,10 @@ import org.openrewrite.java.tree.Statement;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.util.Arrays.asList;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 import static org.openrewrite.Formatting.EMPTY;
@@ -40,6 +42,16 @@ public class SimplifyBooleanReturn extends CheckstyleRefactorVisitor {
         setCursoringOn();
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.If.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return asList("if", "return");
+    }
+
     @Override
     public J visitIf(J.If iff) {
         J.If i = refactor(iff, super::visitIf);
@@ -21,9 +21,13 @@ import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.java.tree.TypeUtils;
 
+import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
+import static java.util.Collections.singletonList;
+
 @AutoConfigure
 public class StaticVariableName extends CheckstyleRefactorVisitor {
     // TODO should this be configurable?
@@ -48,6 +52,16 @@ public class StaticVariableName extends CheckstyleRefactorVisitor {
         this.applyToPrivate = m.prop("applyToPrivate", true);
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.VariableDecls.NamedVar.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return singletonList("static");
+    }
+
     @Override
     public J visitVariable(J.VariableDecls.NamedVar variable) {
         J.VariableDecls multiVariable = getCursor().getParentOrThrow().getTree();
@@ -22,8 +22,10 @@ import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.openrewrite.Formatting.EMPTY;
@@ -32,6 +34,16 @@ import static org.openrewrite.Tree.randomId;
 @AutoConfigure
 public class StringLiteralEquality extends CheckstyleRefactorVisitor {
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Binary.class);
+    }
+
+    @Override
+    protected List<String> getRequiredText() {
+        return asList("\"", "==");
+    }
+
     @Override
     public J visitBinary(J.Binary binary) {
         if(binary.getOperator() instanceof J.Binary.Operator.Equal && (
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.Expression;
+import org.openrewrite.java.tree.J;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Equality of expressions by their structure, ignoring formatting, so that checks like {@code a && a} needn't print
+ * both sides to compare them. Identifiers, literals, field accesses, method invocations, unary and binary
+ * expressions and parentheses are compared node by node, stopping at the first difference. Other kinds of node, and
+ * method invocations with type parameters, are compared by printing each side once and comparing the source
+ * without whitespace.
+ */
+final class StructuralEquality {
+    private StructuralEquality() {
+    }
+
+    static boolean equal(@Nullable J a, @Nullable J b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || a.getClass() != b.getClass()) {
+            return false;
+        }
+
+        if (a instanceof J.Ident) {
+            return ((J.Ident) a).getSimpleName().equals(((J.Ident) b).getSimpleName());
+        } else if (a instanceof J.Literal) {
+            J.Literal la = (J.Literal) a;
+            J.Literal lb = (J.Literal) b;
+            return la.getType() == lb.getType() && Objects.equals(la.getValue(), lb.getValue());
+        } else if (a instanceof J.FieldAccess) {
+            J.FieldAccess fa = (J.FieldAccess) a;
+            J.FieldAccess fb = (J.FieldAccess) b;
+            return fa.getSimpleName().equals(fb.getSimpleName()) && equal(fa.getTarget(), fb.getTarget());
+        } else if (a instanceof J.MethodInvocation) {
+            J.MethodInvocation ma = (J.MethodInvocation) a;
+            J.MethodInvocation mb = (J.MethodInvocation) b;
+            if (ma.getTypeParameters() != null || mb.getTypeParameters() != null) {
+                return equalIgnoringWhitespace(a, b);
+            }
+            return ma.getSimpleName().equals(mb.getSimpleName()) &&
+                    equal(ma.getSelect(), mb.getSelect()) &&
+                    equal(ma.getArgs().getArgs(), mb.getArgs().getArgs());
+        } else if (a instanceof J.Binary) {
+            J.Binary ba = (J.Binary) a;
+            J.Binary bb = (J.Binary) b;
+            return ba.getOperator().getClass() == bb.getOperator().getClass() &&
+                    equal(ba.getLeft(), bb.getLeft()) &&
+                    equal(ba.getRight(), bb.getRight());
+        } else if (a instanceof J.Unary) {
+            J.Unary ua = (J.Unary) a;
+            J.Unary ub = (J.Unary) b;
+            return ua.getOperator().getClass() == ub.getOperator().getClass() && equal(ua.getExpr(), ub.getExpr());
+        } else if (a instanceof J.Parentheses) {
+            return equal(((J.Parentheses<?>) a).getTree(), ((J.Parentheses<?>) b).getTree());
+        } else if (a instanceof J.Empty) {
+            return true;
+        }
+
+        return equalIgnoringWhitespace(a, b);
+    }
+
+    private static boolean equal(List<Expression> a, List<Expression> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!equal(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalIgnoringWhitespace(J a, J b) {
+        String printedA = a.printTrimmed();
+        String printedB = b.printTrimmed();
+        int i = 0;
+        int k = 0;
+        while (true) {
+            while (i < printedA.length() && Character.isWhitespace(printedA.charAt(i))) {
+                i++;
+            }
+            while (k < printedB.length() && Character.isWhitespace(printedB.charAt(k))) {
+                k++;
+            }
+            if (i == printedA.length() || k == printedB.length()) {
+                return i == printedA.length() && k == printedB.length();
+            }
+            if (printedA.charAt(i++) != printedB.charAt(k++)) {
+                return false;
+            }
+        }
+    }
+}
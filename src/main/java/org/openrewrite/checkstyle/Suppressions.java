@@ -0,0 +1,436 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.PackageObjectFactory;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.utils.CommonUtil;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaRefactorVisitor;
+import org.openrewrite.java.tree.J;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code <suppress>} elements of a suppressions file, resolved per source path and check into the ranges of
+ * lines they suppress. Every visitor built from a loaded configuration shares these, so each suppression is
+ * matched once per source file and check rather than once per visit.
+ */
+class Suppressions {
+    static final Suppressions NONE = new Suppressions(null, Collections.emptyList());
+
+    private static final int MAX_INDEXED_SOURCES = 65536;
+
+    /**
+     * The suppressions file these were loaded from, or {@code null} if there is none or they were loaded from a
+     * URL or the classpath.
+     */
+    @Nullable
+    final File file;
+
+    /**
+     * The SHA-256 hash of the bytes of {@link #file} that these were parsed from.
+     */
+    @Nullable
+    final byte[] fileHash;
+
+    /**
+     * The modification time and size of {@link #file} when it was read.
+     */
+    private final long lastModified;
+    private final long length;
+
+    final List<Suppress> suppressions;
+
+    private static final Map<String, String> checkNamesByModuleName = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Optional<LineRanges>>> suppressedBySourceAndCheck = new ConcurrentHashMap<>();
+
+    Suppressions(@Nullable File file, List<Suppress> suppressions) {
+        this(file, null, 0, 0, suppressions);
+    }
+
+    Suppressions(@Nullable File file, @Nullable byte[] fileHash, long lastModified, long length,
+                 List<Suppress> suppressions) {
+        this.file = file;
+        this.fileHash = fileHash;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.suppressions = suppressions;
+    }
+
+    /**
+     * @return {@code true} if {@link #file} has been modified since these were loaded from it.
+     */
+    boolean isStale() {
+        return file != null && (file.lastModified() != lastModified || file.length() != length);
+    }
+
+    /**
+     * Loads suppressions from where a {@code SuppressionFilter}'s {@code file} property says, being a file, a URL
+     * or a classpath resource as Checkstyle itself allows.
+     *
+     * @param baseDir The directory against which a relative file is resolved, or {@code null} for the working
+     *                directory of this process.
+     */
+    static Suppressions load(String location, @Nullable Path baseDir) throws CheckstyleException {
+        File file = new File(location);
+        if (baseDir != null && !file.isAbsolute()) {
+            file = new File(baseDir.toFile(), location);
+        }
+        return file.isFile() ?
+                load(file.getAbsoluteFile().toURI(), file.getAbsoluteFile()) :
+                load(CommonUtil.getUriByFilename(location), null);
+    }
+
+    private static Suppressions load(URI location, @Nullable File file) throws CheckstyleException {
+        List<Suppress> suppressions = new ArrayList<>();
+        byte[] fileHash = null;
+        long lastModified = 0;
+        long length = 0;
+        try {
+            InputSource source;
+            if (file == null) {
+                source = new InputSource(location.toString());
+            } else {
+                // the bytes that are parsed are the ones that are hashed, so a file that changes while it is being
+                // loaded can't be recorded with a hash of its new content
+                // the file is stamped before it is read, so a change while it is being read is seen as stale
+                lastModified = file.lastModified();
+                length = file.length();
+                byte[] bytes = Files.readAllBytes(file.toPath());
+                fileHash = MessageDigest.getInstance("SHA-256").digest(bytes);
+                source = new InputSource(new ByteArrayInputStream(bytes));
+                source.setSystemId(location.toString());
+            }
+
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // the DTD is only needed for validation, and no entity may reach outside the suppressions file
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+
+            NodeList elements = factory.newDocumentBuilder().parse(source).getDocumentElement().getChildNodes();
+            for (int i = 0; i < elements.getLength(); i++) {
+                if (!(elements.item(i) instanceof Element)) {
+                    continue;
+                }
+                Element element = (Element) elements.item(i);
+                if (element.hasAttribute("message")) {
+                    // visitors don't produce Checkstyle's messages, so a suppression by message can't match
+                    continue;
+                }
+                if ("suppress".equals(element.getTagName())) {
+                    suppressions.add(new Suppress(
+                            pattern(element, "files"),
+                            pattern(element, "checks"),
+                            element.hasAttribute("id") ? element.getAttribute("id") : null,
+                            element.hasAttribute("lines") ? LineRanges.parse(element.getAttribute("lines")) : LineRanges.ALL));
+                } else if ("suppress-xpath".equals(element.getTagName())) {
+                    // visitors can't evaluate an XPath query, so rather than fix code that Checkstyle wouldn't
+                    // report, the check is suppressed in the whole of each matching file
+                    suppressions.add(new Suppress(
+                            pattern(element, "files"),
+                            pattern(element, "checks"),
+                            element.hasAttribute("id") ? element.getAttribute("id") : null,
+                            LineRanges.ALL));
+                }
+            }
+        } catch (IOException | SAXException | ParserConfigurationException | NoSuchAlgorithmException |
+                IllegalArgumentException e) {
+            // IllegalArgumentException includes malformed patterns and line numbers
+            throw new CheckstyleException("Unable to load suppressions from " + location, e);
+        }
+        return new Suppressions(file, fileHash, lastModified, length, suppressions);
+    }
+
+    @Nullable
+    private static Pattern pattern(Element element, String attribute) {
+        return element.hasAttribute(attribute) ? Pattern.compile(element.getAttribute(attribute)) : null;
+    }
+
+    /**
+     * @param sourcePath The path of a compilation unit.
+     * @param moduleName The name of the check's module. The {@code checks} attribute is matched against the fully
+     *                   qualified name of the corresponding Checkstyle check, as Checkstyle itself does.
+     * @param moduleId   The {@code id} property of the check's module, if it has one.
+     * @return The lines on which the check is suppressed in this source file, or {@code null} if it isn't.
+     */
+    @Nullable
+    LineRanges suppressed(String sourcePath, String moduleName, @Nullable String moduleId) {
+        if (suppressions.isEmpty()) {
+            return null;
+        }
+
+        if (suppressedBySourceAndCheck.size() > MAX_INDEXED_SOURCES) {
+            // long-lived processes see an unbounded number of paths, and recomputing a decision is cheap
+            suppressedBySourceAndCheck.clear();
+        }
+
+        return suppressedBySourceAndCheck
+                .computeIfAbsent(sourcePath, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(moduleName + (moduleId == null ? "" : "#" + moduleId), c -> {
+                    String checkName = checkName(moduleName);
+                    List<LineRanges> matching = new ArrayList<>();
+                    for (Suppress suppress : suppressions) {
+                        if (suppress.matches(sourcePath, checkName, moduleId)) {
+                            matching.add(suppress.lines);
+                        }
+                    }
+                    return Optional.ofNullable(matching.isEmpty() ? null : LineRanges.union(matching));
+                })
+                .orElse(null);
+    }
+
+    /**
+     * @return The fully qualified class name of the Checkstyle check for a module, such as
+     * {@code com.puppycrawl.tools.checkstyle.checks.coding.FinalLocalVariableCheck} for {@code FinalLocalVariable}.
+     */
+    static String checkName(String moduleName) {
+        return checkNamesByModuleName.computeIfAbsent(moduleName, name -> {
+            try {
+                return new PackageObjectFactory(Checker.class.getPackage().getName(), Suppressions.class.getClassLoader())
+                        .createModule(name)
+                        .getClass()
+                        .getName();
+            } catch (CheckstyleException e) {
+                // not a check that this version of Checkstyle knows about, so at least match its simple name
+                return name + "Check";
+            }
+        });
+    }
+
+    /**
+     * Suppressed lines refer to the source file as it was parsed, so the lines of its nodes must be indexed from
+     * the compilation unit as it was parsed, before any visitor changed it. {@link RewriteCheckstyle} indexes the
+     * original of each refactoring once for all of its visitors. Nodes that visitors create afterwards have no
+     * lines, and are never suppressed.
+     *
+     * @return The first and last line of each node, by the id of the node.
+     */
+    static Map<UUID, int[]> nodeLines(J.CompilationUnit cu) {
+        FormattingLineIndexer indexer = new FormattingLineIndexer();
+        indexer.visit(cu);
+        return indexer.nodeLines;
+    }
+
+    static class Suppress {
+        @Nullable
+        final Pattern files;
+
+        @Nullable
+        final Pattern checks;
+
+        @Nullable
+        final String id;
+
+        final LineRanges lines;
+
+        Suppress(@Nullable Pattern files, @Nullable Pattern checks, @Nullable String id, LineRanges lines) {
+            this.files = files;
+            this.checks = checks;
+            this.id = id;
+            this.lines = lines;
+        }
+
+        private boolean matches(String sourcePath, String checkName, @Nullable String moduleId) {
+            return (files == null || files.matcher(sourcePath).find()) &&
+                    (checks == null || checks.matcher(checkName).find()) &&
+                    (id == null || id.equals(moduleId));
+        }
+    }
+
+    /**
+     * Sorted, non-overlapping ranges of lines, as given by the {@code lines} attribute of a suppression.
+     */
+    static class LineRanges {
+        static final LineRanges ALL = new LineRanges(new int[]{1}, new int[]{Integer.MAX_VALUE});
+
+        final int[] starts;
+        final int[] ends;
+
+        LineRanges(int[] starts, int[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        /**
+         * @param lines A comma-separated list of line numbers and ranges, e.g. "10,20-30".
+         */
+        static LineRanges parse(String lines) {
+            List<int[]> ranges = new ArrayList<>();
+            for (String range : lines.split(",")) {
+                String[] startAndEnd = range.trim().split("-");
+                int start = Integer.parseInt(startAndEnd[0].trim());
+                int end = startAndEnd.length > 1 ? Integer.parseInt(startAndEnd[1].trim()) : start;
+                ranges.add(new int[]{start, end});
+            }
+            return merge(ranges);
+        }
+
+        static LineRanges union(List<LineRanges> lineRanges) {
+            if (lineRanges.size() == 1) {
+                return lineRanges.get(0);
+            }
+
+            List<int[]> ranges = new ArrayList<>();
+            for (LineRanges lines : lineRanges) {
+                if (lines == ALL) {
+                    return ALL;
+                }
+                for (int i = 0; i < lines.starts.length; i++) {
+                    ranges.add(new int[]{lines.starts[i], lines.ends[i]});
+                }
+            }
+            return merge(ranges);
+        }
+
+        private static LineRanges merge(List<int[]> ranges) {
+            ranges.sort(Comparator.comparingInt(range -> range[0]));
+
+            int[] starts = new int[ranges.size()];
+            int[] ends = new int[ranges.size()];
+            int n = 0;
+            for (int[] range : ranges) {
+                if (n > 0 && range[0] <= ends[n - 1] + 1) {
+                    ends[n - 1] = Math.max(ends[n - 1], range[1]);
+                } else {
+                    starts[n] = range[0];
+                    ends[n] = range[1];
+                    n++;
+                }
+            }
+            return new LineRanges(Arrays.copyOf(starts, n), Arrays.copyOf(ends, n));
+        }
+
+        /**
+         * @return {@code true} if every line from {@code start} to {@code end} is suppressed.
+         */
+        boolean covers(int start, int end) {
+            int i = Arrays.binarySearch(starts, start);
+            if (i < 0) {
+                // the range that begins before start, if any
+                i = -i - 2;
+            }
+            return i >= 0 && end <= ends[i];
+        }
+    }
+
+    /**
+     * Finds the lines of each node in a single traversal by counting the line breaks in the formatting before and
+     * after each node, without printing any of them. Only formatting can hold a line break, since comments are
+     * part of it and Java literals and tokens can't span lines.
+     * <p>
+     * The modifiers of a declaration and the end of a block have formatting of their own that the traversal
+     * doesn't necessarily visit as a tree, so they are counted where they appear in the source, and only once.
+     */
+    private static class FormattingLineIndexer extends JavaRefactorVisitor {
+        private final Map<UUID, int[]> nodeLines = new HashMap<>();
+        private final Set<UUID> counted = new HashSet<>();
+
+        /**
+         * The modifiers of the declarations being visited that haven't been counted yet, with the depth of the
+         * declaration's children.
+         */
+        private final Deque<Map.Entry<Integer, List<J.Modifier>>> pendingModifiers = new ArrayDeque<>();
+
+        private int line = 1;
+        private int depth;
+
+        @Override
+        public J visit(@Nullable Tree tree) {
+            if (!(tree instanceof J)) {
+                return super.visit(tree);
+            }
+            J j = (J) tree;
+
+            // modifiers follow a declaration's annotations and precede everything else in it
+            Map.Entry<Integer, List<J.Modifier>> pending = pendingModifiers.peek();
+            if (pending != null && pending.getKey() == depth && !(j instanceof J.Annotation) &&
+                    !(j instanceof J.Modifier)) {
+                countModifiers(pendingModifiers.pop().getValue());
+            }
+
+            if (counted.add(j.getId())) {
+                line += lineBreaks(j.getFormatting().getPrefix());
+            }
+            int start = line;
+
+            depth++;
+            List<J.Modifier> modifiers = j instanceof J.ClassDecl ? ((J.ClassDecl) j).getModifiers() :
+                    j instanceof J.MethodDecl ? ((J.MethodDecl) j).getModifiers() :
+                            j instanceof J.VariableDecls ? ((J.VariableDecls) j).getModifiers() :
+                                    Collections.emptyList();
+            if (!modifiers.isEmpty()) {
+                pendingModifiers.push(new AbstractMap.SimpleEntry<>(depth, modifiers));
+            }
+
+            J result = super.visit(tree);
+
+            pending = pendingModifiers.peek();
+            if (pending != null && pending.getKey() == depth) {
+                countModifiers(pendingModifiers.pop().getValue());
+            }
+            if (j instanceof J.Block) {
+                line += lineBreaks(((J.Block<?>) j).getEnd().getPrefix());
+            }
+            depth--;
+
+            nodeLines.put(j.getId(), new int[]{start, line});
+            line += lineBreaks(j.getFormatting().getSuffix());
+            return result;
+        }
+
+        private void countModifiers(List<J.Modifier> modifiers) {
+            for (J.Modifier modifier : modifiers) {
+                if (counted.add(modifier.getId())) {
+                    line += lineBreaks(modifier.getFormatting().getPrefix()) +
+                            lineBreaks(modifier.getFormatting().getSuffix());
+                }
+            }
+        }
+
+        private static int lineBreaks(String formatting) {
+            int lineBreaks = 0;
+            for (int i = formatting.indexOf('\n'); i >= 0; i = formatting.indexOf('\n', i + 1)) {
+                lineBreaks++;
+            }
+            return lineBreaks;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides from the raw bytes of a source file, before it is parsed, whether any of a set of visitors could have
+ * anything to fix in it, based on the text that each visitor declares as {@link CheckstyleRefactorVisitor#getRequiredText()}.
+ * All the required text of all the visitors is looked for in one pass over the bytes.
+ */
+final class TextPrefilter {
+    private static final int MAX_NEEDLES = 64;
+
+    private final boolean anySource;
+
+    private final List<byte[]> needles = new ArrayList<>();
+
+    /**
+     * For each visitor, the bits of the needles that must all be present.
+     */
+    private final long[] required;
+
+    /**
+     * Whether any needle starts with each byte value, so most bytes are passed over with a single array load.
+     */
+    private final boolean[] firstBytes = new boolean[256];
+
+    TextPrefilter(List<CheckstyleRefactorVisitor> visitors) {
+        boolean anySource = false;
+        List<String> needleText = new ArrayList<>();
+        required = new long[visitors.size()];
+        for (int v = 0; v < visitors.size(); v++) {
+            List<String> requiredText = visitors.get(v).getRequiredText();
+            if (requiredText.isEmpty()) {
+                anySource = true;
+                break;
+            }
+            for (String text : requiredText) {
+                int n = needleText.indexOf(text);
+                if (n < 0) {
+                    n = needleText.size();
+                    needleText.add(text);
+                }
+                if (n >= MAX_NEEDLES) {
+                    anySource = true;
+                    break;
+                }
+                required[v] |= 1L << n;
+            }
+        }
+
+        this.anySource = anySource;
+        for (String text : needleText) {
+            byte[] needle = text.getBytes(StandardCharsets.UTF_8);
+            needles.add(needle);
+            firstBytes[needle[0] & 0xFF] = true;
+        }
+    }
+
+    /**
+     * @param source The bytes of a source file, from its position to its limit, in an ASCII-compatible encoding.
+     * @return {@code false} only if none of the visitors could have anything to fix in the source file.
+     */
+    boolean mightApplyTo(ByteBuffer source) {
+        if (anySource) {
+            return true;
+        }
+
+        int start = source.position();
+        int limit = source.limit();
+        if (limit - start >= 2 && ((source.get(start) & 0xFF) == 0xFE || (source.get(start) & 0xFF) == 0xFF)) {
+            // a UTF-16 byte order mark, in which the required text would not appear byte for byte
+            return true;
+        }
+
+        long found = 0;
+        for (int i = start; i < limit; i++) {
+            if (!firstBytes[source.get(i) & 0xFF]) {
+                continue;
+            }
+
+            for (int n = 0; n < needles.size(); n++) {
+                if ((found & (1L << n)) == 0 && matchesAt(source, i, limit, needles.get(n))) {
+                    found |= 1L << n;
+                    for (long requiredByVisitor : required) {
+                        if ((found & requiredByVisitor) == requiredByVisitor) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesAt(ByteBuffer source, int i, int limit, byte[] needle) {
+        if (limit - i < needle.length) {
+            return false;
+        }
+        for (int j = 0; j < needle.length; j++) {
+            if (source.get(i + j) != needle[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -22,16 +22,18 @@ import org.openrewrite.checkstyle.policy.PadPolicy;
 import org.openrewrite.AutoConfigure;
 import org.openrewrite.java.tree.J;
 
+import java.util.Set;
+
 import static org.openrewrite.Formatting.EMPTY;
 import static org.openrewrite.Formatting.format;
 
 @AutoConfigure
-public class TypecastParenPad extends CheckstyleRefactorVisitor {
+public class TypecastParenPad extends CheckstyleRefactorVisitor implements FusibleVisitor {
     private PadPolicy option;
 
     @Override
     protected void configure(Module m) {
-        this.option = m.propAsOptionValue(PadPolicy::valueOf, PadPolicy.NOSPACE);
+        this.option = m.propAsOptionValue(PadPolicy.class, PadPolicy.NOSPACE);
     }
 
     @Override
@@ -39,10 +41,24 @@ public class TypecastParenPad extends CheckstyleRefactorVisitor {
         return Tags.of("option", option.toString());
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.TypeCast.class);
+    }
+
     @Override
     public J visitTypeCast(J.TypeCast typeCast) {
-        J.TypeCast tc = refactor(typeCast, super::visitTypeCast);
-        Formatting formatting = typeCast.getClazz().getTree().getFormatting();
+        return visitFused(refactor(typeCast, super::visitTypeCast));
+    }
+
+    @Override
+    public J visitFused(J j) {
+        if (!(j instanceof J.TypeCast)) {
+            return j;
+        }
+
+        J.TypeCast tc = (J.TypeCast) j;
+        Formatting formatting = tc.getClazz().getTree().getFormatting();
         if ((option == PadPolicy.NOSPACE) != formatting.equals(EMPTY)) {
             tc = tc.withClazz(tc.getClazz().withTree(tc.getClazz().getTree()
                     .withFormatting(option == PadPolicy.NOSPACE ? EMPTY : format(" ", " "))));
@@ -22,7 +22,7 @@ import org.openrewrite.java.tree.Expression;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,8 +57,42 @@ public class UnnecessaryParentheses extends CheckstyleRefactorVisitor {
             LAMBDA
     ).collect(toSet());
 
+    private static final Map<JavaType.Primitive, ParenthesesToken> LITERAL_TOKENS = new EnumMap<>(JavaType.Primitive.class);
+
+    static {
+        LITERAL_TOKENS.put(JavaType.Primitive.Int, NUM_INT);
+        LITERAL_TOKENS.put(JavaType.Primitive.Double, NUM_DOUBLE);
+        LITERAL_TOKENS.put(JavaType.Primitive.Long, NUM_LONG);
+        LITERAL_TOKENS.put(JavaType.Primitive.Float, NUM_FLOAT);
+        LITERAL_TOKENS.put(JavaType.Primitive.String, STRING_LITERAL);
+    }
+
+    private static final Map<Class<? extends J.AssignOp.Operator>, ParenthesesToken> ASSIGN_OPERATOR_TOKENS = new HashMap<>();
+
+    static {
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Addition.class, PLUS_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Subtraction.class, MINUS_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Multiplication.class, STAR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Division.class, DIV_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.Modulo.class, MOD_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.RightShift.class, SR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.LeftShift.class, SL_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.UnsignedRightShift.class, BSR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.BitAnd.class, BAND_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.BitXor.class, BXOR_ASSIGN);
+        ASSIGN_OPERATOR_TOKENS.put(J.AssignOp.Operator.BitOr.class, BOR_ASSIGN);
+    }
+
     private Set<ParenthesesToken> tokens;
 
+    /**
+     * What the configured tokens select, so that each literal and assignment costs one lookup.
+     */
+    private Set<JavaType.Primitive> unwrappedLiteralTypes;
+    private boolean unwrapTrue;
+    private boolean unwrapFalse;
+    private Set<Class<?>> unwrappedAssignOperators;
+
     public UnnecessaryParentheses() {
         setCursoringOn();
     }
@@ -66,6 +100,24 @@ public class UnnecessaryParentheses extends CheckstyleRefactorVisitor {
     @Override
     protected void configure(Module m) {
         this.tokens = m.propAsTokens(ParenthesesToken.class, DEFAULT_TOKENS);
+
+        Set<JavaType.Primitive> unwrappedLiteralTypes = EnumSet.noneOf(JavaType.Primitive.class);
+        LITERAL_TOKENS.forEach((type, token) -> {
+            if (tokens.contains(token)) {
+                unwrappedLiteralTypes.add(type);
+            }
+        });
+        this.unwrappedLiteralTypes = unwrappedLiteralTypes;
+        this.unwrapTrue = tokens.contains(LITERAL_TRUE);
+        this.unwrapFalse = tokens.contains(LITERAL_FALSE);
+
+        Set<Class<?>> unwrappedAssignOperators = new HashSet<>();
+        ASSIGN_OPERATOR_TOKENS.forEach((operator, token) -> {
+            if (tokens.contains(token)) {
+                unwrappedAssignOperators.add(operator);
+            }
+        });
+        this.unwrappedAssignOperators = unwrappedAssignOperators;
     }
 
     @Override
@@ -77,17 +129,19 @@ public class UnnecessaryParentheses extends CheckstyleRefactorVisitor {
         return super.visitParentheses(parens);
     }
 
+    @Override
+    protected Set<Class<? extends J>> getNodeKinds() {
+        return nodeKinds(J.Assign.class, J.AssignOp.class, J.Lambda.class, J.Literal.class, J.Parentheses.class,
+                J.VariableDecls.NamedVar.class);
+    }
+
     @Override
     public J visitLiteral(J.Literal literal) {
         JavaType.Primitive type = literal.getType();
 
-        if ((tokens.contains(NUM_INT) && type == JavaType.Primitive.Int) ||
-                (tokens.contains(NUM_DOUBLE) && type == JavaType.Primitive.Double) ||
-                (tokens.contains(NUM_LONG) && type == JavaType.Primitive.Long) ||
-                (tokens.contains(NUM_FLOAT) && type == JavaType.Primitive.Float) ||
-                (tokens.contains(STRING_LITERAL) && type == JavaType.Primitive.String) ||
-                (tokens.contains(LITERAL_FALSE) && type == JavaType.Primitive.Boolean && literal.getValue() == Boolean.valueOf(false)) ||
-                (tokens.contains(LITERAL_TRUE) && type == JavaType.Primitive.Boolean && literal.getValue() == Boolean.valueOf(true))) {
+        if (type == JavaType.Primitive.Boolean ?
+                (literal.getValue() == Boolean.valueOf(true) ? unwrapTrue : unwrapFalse && literal.getValue() == Boolean.valueOf(false)) :
+                type != null && unwrappedLiteralTypes.contains(type)) {
             maybeUnwrapParentheses(getCursor());
         }
 
@@ -97,19 +151,7 @@ public class UnnecessaryParentheses extends CheckstyleRefactorVisitor {
     @Override
     public J visitAssignOp(J.AssignOp assignOp) {
         Expression assignment = assignOp.getAssignment();
-        J.AssignOp.Operator op = assignOp.getOperator();
-        if (assignment instanceof J.Parentheses && ((tokens.contains(BAND_ASSIGN) && op instanceof J.AssignOp.Operator.BitAnd) ||
-                (tokens.contains(BOR_ASSIGN) && op instanceof J.AssignOp.Operator.BitOr) ||
-                (tokens.contains(BSR_ASSIGN) && op instanceof J.AssignOp.Operator.UnsignedRightShift) ||
-                (tokens.contains(BXOR_ASSIGN) && op instanceof J.AssignOp.Operator.BitXor) ||
-                (tokens.contains(SR_ASSIGN) && op instanceof J.AssignOp.Operator.RightShift) ||
-                (tokens.contains(SL_ASSIGN) && op instanceof J.AssignOp.Operator.LeftShift) ||
-                (tokens.contains(MINUS_ASSIGN) && op instanceof J.AssignOp.Operator.Subtraction) ||
-                (tokens.contains(DIV_ASSIGN) && op instanceof J.AssignOp.Operator.Division) ||
-                (tokens.contains(PLUS_ASSIGN) && op instanceof J.AssignOp.Operator.Addition) ||
-                (tokens.contains(STAR_ASSIGN) && op instanceof J.AssignOp.Operator.Multiplication) ||
-                (tokens.contains(MOD_ASSIGN) && op instanceof J.AssignOp.Operator.Modulo))) {
-
+        if (assignment instanceof J.Parentheses && unwrappedAssignOperators.contains(assignOp.getOperator().getClass())) {
             maybeUnwrapParentheses(new Cursor(getCursor(), assignment));
         }
 
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A time budget for visiting one source file, both in total and for each {@link CheckstyleRefactorVisitor}.
+ * A watchdog thread marks a budget as exceeded when its deadline passes, and visitors check that mark as they
+ * descend into each tree, so a pathological source file abandons the visit instead of stalling the whole run.
+ * Deadlines are scheduled only while a budget is armed and cancelled as soon as it is met, so the watchdog is idle,
+ * and its thread exits, whenever nothing is being visited under a budget.
+ * <p>
+ * The helper visitors of this project that checks schedule with {@code andThen} check the budget too, as
+ * {@link BudgetedRefactorVisitor}s. Helpers from rewrite-java itself, such as {@code DeleteStatement} and
+ * {@code ChangeFieldName}, don't, so an overrun within one of them is only noticed when the next visitor starts.
+ */
+public final class VisitBudget {
+    private static final ThreadLocal<VisitBudget> current = new ThreadLocal<>();
+
+    private static final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "rewrite-checkstyle-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // most deadlines are cancelled long before they are due, so they shouldn't pile up in the queue
+        watchdog.setRemoveOnCancelPolicy(true);
+        watchdog.setKeepAliveTime(1, TimeUnit.SECONDS);
+        watchdog.allowCoreThreadTimeOut(true);
+    }
+
+    private final long fileStart = System.nanoTime();
+    private final long fileBudget;
+    private final long visitorBudget;
+
+    @Nullable
+    private volatile String visitor;
+
+    private volatile long visitorStart = fileStart;
+
+    @Nullable
+    private ScheduledFuture<?> fileDeadline;
+
+    @Nullable
+    private ScheduledFuture<?> visitorDeadline;
+
+    @Nullable
+    private volatile VisitTimeoutException expired;
+
+    private VisitBudget(Duration fileBudget, Duration visitorBudget) {
+        this.fileBudget = fileBudget.toNanos();
+        this.visitorBudget = visitorBudget.toNanos();
+    }
+
+    /**
+     * Runs {@code visit} on the current thread with a time budget in place for any
+     * {@link CheckstyleRefactorVisitor} it runs.
+     *
+     * @throws VisitTimeoutException if either budget is exceeded.
+     */
+    public static <T> T run(Duration fileBudget, Duration visitorBudget, Supplier<T> visit) {
+        VisitBudget budget = new VisitBudget(fileBudget, visitorBudget);
+        VisitBudget previous = current.get();
+        current.set(budget);
+        budget.fileDeadline = watchdog.schedule(() -> budget.expire(null, budget.fileStart, "file"),
+                budget.fileBudget, TimeUnit.NANOSECONDS);
+        try {
+            return visit.get();
+        } finally {
+            budget.fileDeadline.cancel(false);
+            if (budget.visitorDeadline != null) {
+                budget.visitorDeadline.cancel(false);
+            }
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    static void enter(String visitor) {
+        VisitBudget budget = current.get();
+        if (budget != null) {
+            check();
+            if (budget.visitorDeadline != null) {
+                budget.visitorDeadline.cancel(false);
+            }
+            long start = System.nanoTime();
+            budget.visitorStart = start;
+            budget.visitor = visitor;
+            budget.visitorDeadline = watchdog.schedule(() -> budget.expire(visitor, start, "visitor"),
+                    budget.visitorBudget, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static void check() {
+        VisitBudget budget = current.get();
+        if (budget != null) {
+            VisitTimeoutException e = budget.expired;
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Runs on the watchdog thread when a deadline passes.
+     *
+     * @param visitor The visitor whose budget this was, or {@code null} for the file's budget, in which case the
+     *                visitor running at the time is reported.
+     * @param start   When the budget started. A visitor's deadline that fires just as the next visitor starts is
+     *                cancelled too late, and is ignored because that visitor has a later start.
+     */
+    private void expire(@Nullable String visitor, long start, String kind) {
+        if (expired != null || (visitor != null && visitorStart != start)) {
+            return;
+        }
+        expired = new VisitTimeoutException(visitor == null ? this.visitor : visitor,
+                Duration.ofNanos(System.nanoTime() - start), kind);
+    }
+
+    public static class VisitTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        @Nullable
+        private final String visitor;
+
+        private final Duration elapsed;
+
+        VisitTimeoutException(@Nullable String visitor, Duration elapsed, String budget) {
+            super("Exceeded the " + budget + " time budget after " + elapsed.toMillis() + "ms" +
+                    (visitor == null ? "" : " in " + visitor), null, false, false);
+            this.visitor = visitor;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return The simple name of the visitor that was running when the budget was exceeded.
+         */
+        @Nullable
+        public String getVisitor() {
+            return visitor;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+    }
+}
@@ -19,9 +19,28 @@ import org.openrewrite.Tree;
 import org.openrewrite.internal.lang.Nullable;
 
 final class WhitespaceChecks {
+    /**
+     * Shared instances of a line break followed by up to this many spaces or tabs, which is what most stripped
+     * prefixes are left with.
+     */
+    private static final int MAX_SHARED_INDENT = 32;
+
+    private static final String[] LINEBREAK_SPACES = linebreakIndents(' ');
+    private static final String[] LINEBREAK_TABS = linebreakIndents('\t');
+
     private WhitespaceChecks() {
     }
 
+    private static String[] linebreakIndents(char indent) {
+        String[] linebreakIndents = new String[MAX_SHARED_INDENT + 1];
+        StringBuilder linebreakIndent = new StringBuilder("\n");
+        for (int i = 0; i <= MAX_SHARED_INDENT; i++) {
+            linebreakIndents[i] = linebreakIndent.toString();
+            linebreakIndent.append(indent);
+        }
+        return linebreakIndents;
+    }
+
     public static boolean prefixStartsWithNonLinebreakWhitespace(@Nullable Tree t) {
         return t != null && startsWithNonLinebreakWhitespace(t.getFormatting().getPrefix());
     }
@@ -31,26 +50,84 @@ final class WhitespaceChecks {
     }
 
     public static boolean startsWithNonLinebreakWhitespace(String prefixOrSuffix) {
-        return prefixOrSuffix.startsWith(" ") || prefixOrSuffix.startsWith("\t");
+        return !prefixOrSuffix.isEmpty() && isNonLinebreakWhitespace(prefixOrSuffix.charAt(0));
     }
 
+    /**
+     * @return {@code true} if there is a space or tab anywhere in the prefix or suffix.
+     */
+    public static boolean containsNonLinebreakWhitespace(String prefixOrSuffix) {
+        for (int i = 0; i < prefixOrSuffix.length(); i++) {
+            if (isNonLinebreakWhitespace(prefixOrSuffix.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The same tree when there is nothing to strip from its suffix.
+     */
     public static <T extends Tree> T stripSuffixUpToLinebreak(@Nullable T t) {
-        return t == null ? null : t.withSuffix(stripUpToLinebreak(t.getFormatting().getSuffix()));
+        if (t == null) {
+            return null;
+        }
+        String suffix = t.getFormatting().getSuffix();
+        String stripped = stripUpToLinebreak(suffix);
+        return stripped == suffix ? t : t.withSuffix(stripped);
     }
 
+    /**
+     * @return The same tree when there is nothing to strip from its prefix.
+     */
     public static <T extends Tree> T stripPrefixUpToLinebreak(@Nullable T t) {
-        return t == null ? null : t.withPrefix(stripUpToLinebreak(t.getFormatting().getPrefix()));
+        if (t == null) {
+            return null;
+        }
+        String prefix = t.getFormatting().getPrefix();
+        String stripped = stripUpToLinebreak(prefix);
+        return stripped == prefix ? t : t.withPrefix(stripped);
     }
 
+    /**
+     * @return The same string when it doesn't start with a space or tab, so callers can tell that nothing was
+     * stripped by comparing references. The common results, nothing at all or a line break followed by an
+     * indent of only spaces or only tabs, are shared instances.
+     */
     public static String stripUpToLinebreak(String prefixOrSuffix) {
-        StringBuilder sb = new StringBuilder();
-        boolean drop = true;
-        for (char c : prefixOrSuffix.toCharArray()) {
-            drop &= (c == ' ' || c == '\t');
-            if(!drop) {
-                sb.append(c);
+        int start = 0;
+        while (start < prefixOrSuffix.length() && isNonLinebreakWhitespace(prefixOrSuffix.charAt(start))) {
+            start++;
+        }
+
+        if (start == 0) {
+            return prefixOrSuffix;
+        } else if (start == prefixOrSuffix.length()) {
+            return "";
+        }
+
+        String shared = sharedLinebreakIndent(prefixOrSuffix, start);
+        return shared == null ? prefixOrSuffix.substring(start) : shared;
+    }
+
+    @Nullable
+    private static String sharedLinebreakIndent(String s, int start) {
+        int indent = s.length() - start - 1;
+        if (s.charAt(start) != '\n' || indent > MAX_SHARED_INDENT) {
+            return null;
+        }
+
+        String[] linebreakIndents = indent > 0 && s.charAt(start + 1) == '\t' ? LINEBREAK_TABS : LINEBREAK_SPACES;
+        char indentChar = linebreakIndents == LINEBREAK_TABS ? '\t' : ' ';
+        for (int i = start + 1; i < s.length(); i++) {
+            if (s.charAt(i) != indentChar) {
+                return null;
             }
         }
-        return sb.toString();
+        return linebreakIndents[indent];
+    }
+
+    private static boolean isNonLinebreakWhitespace(char c) {
+        return c == ' ' || c == '\t';
     }
 }
@@ -17,46 +17,45 @@ package org.openrewrite.checkstyle.policy;
 
 import org.openrewrite.Cursor;
 import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.tree.J;
 
 import java.util.Set;
 
-import static java.util.Arrays.stream;
-
 public enum Token {
-    ANNOTATION_DEF((t, p) -> t instanceof J.Annotation),
-    CLASS_DEF((t, p) -> t instanceof J.ClassDecl && ((J.ClassDecl) t).getKind() instanceof J.ClassDecl.Kind.Class),
-    CTOR_DEF((t, p) -> t instanceof J.MethodDecl && ((J.MethodDecl) t).isConstructor()),
-    ENUM_CONSTANT_DEF((t, p) -> t instanceof J.EnumValue),
-    ENUM_DEF((t, p) -> t instanceof J.ClassDecl && ((J.ClassDecl) t).getKind() instanceof J.ClassDecl.Kind.Enum),
-    INTERFACE_DEF((t, p) -> t instanceof J.ClassDecl && ((J.ClassDecl) t).getKind() instanceof J.ClassDecl.Kind.Interface),
-    LAMBDA((t, p) -> t instanceof J.Lambda),
+    ANNOTATION_DEF((t, p) -> t instanceof J.Annotation, J.Annotation.class),
+    CLASS_DEF((t, p) -> t instanceof J.ClassDecl && ((J.ClassDecl) t).getKind() instanceof J.ClassDecl.Kind.Class, J.ClassDecl.class),
+    CTOR_DEF((t, p) -> t instanceof J.MethodDecl && ((J.MethodDecl) t).isConstructor(), J.MethodDecl.class),
+    ENUM_CONSTANT_DEF((t, p) -> t instanceof J.EnumValue, J.EnumValue.class),
+    ENUM_DEF((t, p) -> t instanceof J.ClassDecl && ((J.ClassDecl) t).getKind() instanceof J.ClassDecl.Kind.Enum, J.ClassDecl.class),
+    INTERFACE_DEF((t, p) -> t instanceof J.ClassDecl && ((J.ClassDecl) t).getKind() instanceof J.ClassDecl.Kind.Interface, J.ClassDecl.class),
+    LAMBDA((t, p) -> t instanceof J.Lambda, J.Lambda.class),
     LITERAL_CASE((t, p) -> t instanceof J.Case &&
             (((J.Case) t).getPattern() != null &&
-                    !"default".equals(((J.Case) t).getPattern().printTrimmed()))),
-    LITERAL_CATCH((t, p) -> t instanceof J.Try.Catch),
+                    !"default".equals(((J.Case) t).getPattern().printTrimmed())), J.Case.class),
+    LITERAL_CATCH((t, p) -> t instanceof J.Try.Catch, J.Try.Catch.class),
     LITERAL_DEFAULT((t, p) -> t instanceof J.Case &&
             (((J.Case) t).getPattern() != null &&
-                    "default".equals(((J.Case) t).getPattern().printTrimmed()))),
-    LITERAL_DO((t, p) -> t instanceof J.DoWhileLoop),
-    LITERAL_ELSE((t, p) -> t instanceof J.If.Else),
-    LITERAL_FINALLY((t, p) -> t instanceof J.Try.Finally),
-    LITERAL_FOR((t, p) -> t instanceof J.ForLoop),
-    LITERAL_IF((t, p) -> t instanceof J.If),
-    LITERAL_NEW((t, p) -> t instanceof J.NewClass || t instanceof J.NewArray),
-    LITERAL_SWITCH((t, p) -> t instanceof J.Switch),
-    LITERAL_SYNCHRONIZED((t, p) -> t instanceof J.Synchronized),
-    LITERAL_TRY((t, p) -> t instanceof J.Try),
-    LITERAL_WHILE((t, p) -> t instanceof J.WhileLoop),
-    METHOD_CALL((t, p) -> t instanceof J.MethodInvocation),
-    METHOD_DEF((t, p) -> t instanceof J.MethodDecl),
-    OBJBLOCK((t, p) -> t instanceof J.Block && p.getTree() instanceof J.ClassDecl),
-    STATIC_INIT((t, p) -> t instanceof J.Block && ((J.Block<?>) t).getStatic() != null),
-    SUPER_CTOR_CALL((t, p) -> t instanceof J.MethodInvocation && ((J.MethodInvocation) t).getSimpleName().equals("super")),
-    INSTANCE_INIT((t, p) -> t instanceof J.NewClass),
-    ARRAY_INIT((t, p) -> t instanceof J.NewArray),
-    VARIABLE_DEF((t, p) -> t instanceof J.VariableDecls.NamedVar),
-    PARAMETER_DEF((t, p) -> p.getParentOrThrow().getTree() instanceof J.MethodDecl);
+                    "default".equals(((J.Case) t).getPattern().printTrimmed())), J.Case.class),
+    LITERAL_DO((t, p) -> t instanceof J.DoWhileLoop, J.DoWhileLoop.class),
+    LITERAL_ELSE((t, p) -> t instanceof J.If.Else, J.If.Else.class),
+    LITERAL_FINALLY((t, p) -> t instanceof J.Try.Finally, J.Try.Finally.class),
+    LITERAL_FOR((t, p) -> t instanceof J.ForLoop, J.ForLoop.class),
+    LITERAL_IF((t, p) -> t instanceof J.If, J.If.class),
+    LITERAL_NEW((t, p) -> t instanceof J.NewClass || t instanceof J.NewArray, J.NewClass.class, J.NewArray.class),
+    LITERAL_SWITCH((t, p) -> t instanceof J.Switch, J.Switch.class),
+    LITERAL_SYNCHRONIZED((t, p) -> t instanceof J.Synchronized, J.Synchronized.class),
+    LITERAL_TRY((t, p) -> t instanceof J.Try, J.Try.class),
+    LITERAL_WHILE((t, p) -> t instanceof J.WhileLoop, J.WhileLoop.class),
+    METHOD_CALL((t, p) -> t instanceof J.MethodInvocation, J.MethodInvocation.class),
+    METHOD_DEF((t, p) -> t instanceof J.MethodDecl, J.MethodDecl.class),
+    OBJBLOCK((t, p) -> t instanceof J.Block && p.getTree() instanceof J.ClassDecl, J.Block.class),
+    STATIC_INIT((t, p) -> t instanceof J.Block && ((J.Block<?>) t).getStatic() != null, J.Block.class),
+    SUPER_CTOR_CALL((t, p) -> t instanceof J.MethodInvocation && ((J.MethodInvocation) t).getSimpleName().equals("super"), J.MethodInvocation.class),
+    INSTANCE_INIT((t, p) -> t instanceof J.NewClass, J.NewClass.class),
+    ARRAY_INIT((t, p) -> t instanceof J.NewArray, J.NewArray.class),
+    VARIABLE_DEF((t, p) -> t instanceof J.VariableDecls.NamedVar, J.VariableDecls.NamedVar.class),
+    PARAMETER_DEF((t, p) -> p.getParentOrThrow().getTree() instanceof J.MethodDecl, Tree.class);
 
     public interface TokenMatcher {
         boolean matchesNotNullCursor(Tree tree, Cursor parent);
@@ -66,17 +65,88 @@ public enum Token {
         }
     }
 
+    private static final Token[] VALUES = values();
+
+    /**
+     * The tokens that a tree of each class could match, as a mask of {@link #bit()}s, so that a tree is only tested
+     * against the matchers of tokens that apply to its kind.
+     */
+    private static final ClassValue<Long> candidatesByTreeClass = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> treeClass) {
+            long candidates = 0;
+            for (Token token : VALUES) {
+                for (Class<?> kind : token.kinds) {
+                    if (kind.isAssignableFrom(treeClass)) {
+                        candidates |= token.bit();
+                        break;
+                    }
+                }
+            }
+            return candidates;
+        }
+    };
+
     private final TokenMatcher matcher;
 
-    Token(TokenMatcher matcher) {
+    /**
+     * The kinds of tree that the matcher can match.
+     */
+    private final Class<?>[] kinds;
+
+    Token(TokenMatcher matcher, Class<?>... kinds) {
         this.matcher = matcher;
+        this.kinds = kinds;
     }
 
     public TokenMatcher getMatcher() {
         return matcher;
     }
 
+    /**
+     * @return This token's bit in a mask of tokens.
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    public static long mask(Token... tokens) {
+        long mask = 0;
+        for (Token token : tokens) {
+            mask |= token.bit();
+        }
+        return mask;
+    }
+
+    public static long mask(Set<Token> tokens) {
+        long mask = 0;
+        for (Token token : tokens) {
+            mask |= token.bit();
+        }
+        return mask;
+    }
+
     public static boolean matchesOneOf(Set<Token> configured, Cursor cursor, Token... tokens) {
-        return stream(tokens).anyMatch(token -> configured.contains(token) && token.getMatcher().matches(cursor));
+        return matchesOneOf(mask(configured) & mask(tokens), cursor);
+    }
+
+    /**
+     * @param tokens A mask of the tokens to match, as built by {@link #mask(Set)}. It is intersected with the tokens
+     *               that could match the kind of tree at the cursor before any matcher is called.
+     */
+    public static boolean matchesOneOf(long tokens, @Nullable Cursor cursor) {
+        if (cursor == null) {
+            return false;
+        }
+
+        Tree tree = cursor.getTree();
+        long candidates = tokens & candidatesByTreeClass.get(tree.getClass());
+        while (candidates != 0) {
+            if (VALUES[Long.numberOfTrailingZeros(candidates)].matcher.matchesNotNullCursor(tree, cursor.getParent())) {
+                return true;
+            }
+            candidates &= candidates - 1;
+        }
+        return false;
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.*
+
+class ConfigurationCacheTest {
+    /**
+     * Every configuration is distinct from those of other tests, which share the cache.
+     */
+    private fun config(suppressions: Path? = null) = """
+        <?xml version="1.0"?>
+        <!DOCTYPE module PUBLIC
+            "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+            "https://checkstyle.org/dtds/configuration_1_3.dtd">
+        <!-- ${UUID.randomUUID()} -->
+        <module name="Checker">
+            ${suppressions?.let { """<module name="SuppressionFilter"><property name="file" value="$it"/></module>""" } ?: ""}
+            <module name="TreeWalker">
+                <module name="FinalClass"/>
+            </module>
+        </module>
+    """.trimIndent().trim()
+
+    private fun loadInline(config: String) = FinalClass().apply { setConfig(config) }
+
+    private fun loadFile(dir: Path) = FinalClass().apply {
+        setBaseDir(dir)
+        setConfigFile(File("checkstyle.xml"))
+    }
+
+    /**
+     * Runs [load] and returns how many configuration cache hits and misses it caused.
+     */
+    private fun lookups(load: () -> Unit): Pair<Long, Long> {
+        val hits = CheckstyleRefactorVisitor.getConfigurationCacheHits()
+        val misses = CheckstyleRefactorVisitor.getConfigurationCacheMisses()
+        load()
+        return (CheckstyleRefactorVisitor.getConfigurationCacheHits() - hits) to
+                (CheckstyleRefactorVisitor.getConfigurationCacheMisses() - misses)
+    }
+
+    /**
+     * Rewrites a file with new content and a modification time that differs even on file systems with a coarse
+     * timestamp resolution.
+     */
+    private fun modify(file: Path, content: String) {
+        val lastModified = file.toFile().lastModified()
+        Files.write(file, content.toByteArray())
+        file.toFile().setLastModified(lastModified + 2000)
+    }
+
+    @Test
+    fun inlineConfigsAreKeyedByTheirText() {
+        val config = config()
+
+        assertThat(lookups { loadInline(config) }).isEqualTo(0L to 1L)
+        assertThat(lookups { loadInline(config) }).isEqualTo(1L to 0L)
+        assertThat(lookups { loadInline(config()) }).isEqualTo(0L to 1L)
+    }
+
+    @Test
+    fun leastRecentlyUsedIsEvictedPast32Entries() {
+        val first = config()
+        loadInline(first)
+        repeat(31) { loadInline(config()) }
+        assertThat(lookups { loadInline(first) }).isEqualTo(1L to 0L)
+
+        // the lookup above made the first configuration the most recently used, so it takes 32 more to evict it
+        repeat(32) { loadInline(config()) }
+        assertThat(lookups { loadInline(first) }).isEqualTo(0L to 1L)
+    }
+
+    @Test
+    fun configFileIsReloadedWhenModified(@TempDir dir: Path) {
+        val configFile = dir.resolve("checkstyle.xml")
+        Files.write(configFile, config().toByteArray())
+
+        assertThat(lookups { loadFile(dir) }).isEqualTo(0L to 1L)
+        assertThat(lookups { loadFile(dir) }).isEqualTo(1L to 0L)
+
+        modify(configFile, config())
+        assertThat(lookups { loadFile(dir) }).isEqualTo(0L to 1L)
+        assertThat(lookups { loadFile(dir) }).isEqualTo(1L to 0L)
+    }
+
+    @Test
+    fun configIsReloadedWhenItsSuppressionsFileIsModified(@TempDir dir: Path) {
+        val suppressionsFile = dir.resolve("suppressions.xml")
+        Files.write(suppressionsFile, "<suppressions/>".toByteArray())
+        val config = config(suppressionsFile)
+
+        assertThat(lookups { loadInline(config) }).isEqualTo(0L to 1L)
+        assertThat(lookups { loadInline(config) }).isEqualTo(1L to 0L)
+
+        modify(suppressionsFile, """<suppressions><suppress checks="FinalClass"/></suppressions>""")
+        assertThat(lookups { loadInline(config) }).isEqualTo(0L to 1L)
+        assertThat(lookups { loadInline(config) }).isEqualTo(1L to 0L)
+    }
+
+    @Test
+    fun lookupsArePublishedAsMetrics() {
+        val registry = SimpleMeterRegistry()
+        Metrics.addRegistry(registry)
+        try {
+            val config = config()
+            loadInline(config)
+            loadInline(config)
+            loadInline(config)
+
+            assertThat(registry.counter("rewrite.checkstyle.configuration.cache", "result", "miss").count())
+                    .isEqualTo(1.0)
+            assertThat(registry.counter("rewrite.checkstyle.configuration.cache", "result", "hit").count())
+                    .isEqualTo(2.0)
+        } finally {
+            Metrics.removeRegistry(registry)
+        }
+    }
+}
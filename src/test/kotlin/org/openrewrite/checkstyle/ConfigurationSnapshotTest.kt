@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+
+class ConfigurationSnapshotTest {
+    private fun writeConfig(dir: Path, suppressions: String = "<suppress checks=\"NeedBraces\" lines=\"1-3,7\"/>"): Path {
+        Files.write(dir.resolve("suppressions.xml"), """
+            <?xml version="1.0"?>
+            <suppressions>
+                $suppressions
+            </suppressions>
+        """.trimIndent().toByteArray())
+
+        val config = dir.resolve("checkstyle.xml")
+        Files.write(config, """
+            <?xml version="1.0"?>
+            <!DOCTYPE module PUBLIC
+                "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+                "https://checkstyle.org/dtds/configuration_1_3.dtd">
+            <module name="Checker">
+                <module name="SuppressionFilter">
+                    <property name="file" value="suppressions.xml"/>
+                </module>
+                <module name="TreeWalker">
+                    <module name="NeedBraces">
+                        <property name="allowSingleLineStatement" value="true"/>
+                    </module>
+                </module>
+            </module>
+        """.trimIndent().toByteArray())
+        return config
+    }
+
+    private fun snapshotOf(config: Path) = config.resolveSibling("checkstyle.xml.snapshot")
+
+    private fun key(config: Path, dir: Path) = ConfigurationSnapshot.key(Files.readAllBytes(config), null, dir)
+
+    @Test
+    fun roundTrip(@TempDir dir: Path) {
+        val config = writeConfig(dir)
+        val loaded = ConfigurationSnapshot.load(config, null, dir)
+
+        val read = ConfigurationSnapshot.read(snapshotOf(config), key(config, dir))!!
+
+        assertThat(read.modulesByName.keys).containsExactly("NeedBraces")
+        assertThat(read.modulesByName["NeedBraces"]!!.properties)
+                .isEqualTo(loaded.modulesByName["NeedBraces"]!!.properties)
+        assertThat(read.suppressions.file).isEqualTo(dir.resolve("suppressions.xml").toAbsolutePath().toFile())
+        assertThat(read.suppressions.fileHash).isEqualTo(loaded.suppressions.fileHash)
+
+        val suppress = read.suppressions.suppressions.single()
+        assertThat(suppress.checks!!.pattern()).isEqualTo("NeedBraces")
+        assertThat(suppress.lines.starts).containsExactly(1, 7)
+        assertThat(suppress.lines.ends).containsExactly(3, 7)
+    }
+
+    @Test
+    fun suppressionsPathIsAbsolute(@TempDir dir: Path) {
+        val config = writeConfig(dir)
+        ConfigurationSnapshot.load(config, null, dir)
+
+        val read = ConfigurationSnapshot.read(snapshotOf(config), key(config, dir))!!
+        assertThat(read.suppressions.file!!.isAbsolute).isTrue()
+    }
+
+    @Test
+    fun changedSuppressionsInvalidateSnapshot(@TempDir dir: Path) {
+        val config = writeConfig(dir)
+        ConfigurationSnapshot.load(config, null, dir)
+
+        writeConfig(dir, suppressions = "<suppress checks=\"NeedBraces\"/>")
+        assertThat(ConfigurationSnapshot.read(snapshotOf(config), key(config, dir))).isNull()
+
+        val reloaded = ConfigurationSnapshot.load(config, null, dir)
+        assertThat(reloaded.suppressions.suppressions.single().lines).isSameAs(Suppressions.LineRanges.ALL)
+    }
+
+    @Test
+    fun changedConfigurationInvalidatesSnapshot(@TempDir dir: Path) {
+        val config = writeConfig(dir)
+        val key = key(config, dir)
+        ConfigurationSnapshot.load(config, null, dir)
+
+        Files.write(config, String(Files.readAllBytes(config)).replace("true", "false").toByteArray())
+
+        assertThat(ConfigurationSnapshot.read(snapshotOf(config), key(config, dir))).isNull()
+        assertThat(ConfigurationSnapshot.read(snapshotOf(config), key)).isNotNull()
+        assertThat(ConfigurationSnapshot.load(config, null, dir).modulesByName["NeedBraces"]!!
+                .prop("allowSingleLineStatement", true)).isFalse()
+    }
+
+    @Test
+    fun keyOfNoBaseDirectoryIsTheWorkingDirectory(@TempDir dir: Path) {
+        val config = Files.readAllBytes(writeConfig(dir))
+        val workingDirectory = Paths.get("").toAbsolutePath()
+
+        assertThat(ConfigurationSnapshot.key(config, null, null))
+                .isEqualTo(ConfigurationSnapshot.key(config, null, workingDirectory))
+        assertThat(ConfigurationSnapshot.key(config, null, null))
+                .isNotEqualTo(ConfigurationSnapshot.key(config, null, dir))
+    }
+}
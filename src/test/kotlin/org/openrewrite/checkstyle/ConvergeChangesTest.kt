@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.openrewrite.java.JavaParser
+import org.openrewrite.java.tree.J
+
+class ConvergeChangesTest {
+    /**
+     * Counts every positive int literal down by one each pass, recording the literals that each pass visits.
+     */
+    class CountDown(private val visitedByPass: MutableList<MutableList<Any?>>) : CheckstyleRefactorVisitor() {
+        init {
+            setCursoringOn()
+        }
+
+        override fun visitCompilationUnit(cu: J.CompilationUnit): J {
+            visitedByPass.add(mutableListOf())
+            val c = refactor(cu) { super.visitCompilationUnit(it) }
+            convergeChanges(cu, c) { CountDown(visitedByPass) }
+            return c
+        }
+
+        override fun visitLiteral(literal: J.Literal): J {
+            visitedByPass.last().add(literal.value)
+            val n = literal.value
+            return if (n is Int && n > 0) changed(literal.withValue(n - 1).withValueSource("${n - 1}")) else literal
+        }
+    }
+
+    private val registry = SimpleMeterRegistry()
+
+    @BeforeEach
+    fun addRegistry() {
+        Metrics.addRegistry(registry)
+    }
+
+    @AfterEach
+    fun removeRegistry() {
+        Metrics.removeRegistry(registry)
+    }
+
+    private fun countDown(visitedByPass: MutableList<MutableList<Any?>> = mutableListOf()) =
+            CountDown(visitedByPass).apply {
+                setConfig("""
+                    <?xml version="1.0"?>
+                    <!DOCTYPE module PUBLIC
+                        "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+                        "https://checkstyle.org/dtds/configuration_1_3.dtd">
+                    <module name="Checker">
+                        <module name="TreeWalker">
+                            <module name="CountDown"/>
+                        </module>
+                    </module>
+                """.trimIndent().trim())
+            }
+
+    private fun parse(source: String) = JavaParser.fromJavaVersion().build().parse(source.trimIndent())[0]
+
+    private val cu = parse("""
+        public class A {
+            int a = 2;
+            int b = 0;
+        }
+    """)
+
+    @Test
+    fun laterPassesOnlyVisitTheTreesThatChanged() {
+        val visitedByPass = mutableListOf<MutableList<Any?>>()
+        val countDown = countDown(visitedByPass)
+
+        val fixed = cu.refactor().visit(countDown).fix(1).fixed
+
+        assertThat(fixed.printTrimmed()).isEqualTo("""
+            public class A {
+                int a = 0;
+                int b = 0;
+            }
+        """.trimIndent())
+
+        // the literal of b is only visited by the first pass, which didn't change it
+        assertThat(visitedByPass).containsExactly(listOf(2, 0), listOf(1), listOf(0))
+        assertThat(countDown.isPassesExhausted).isFalse()
+        assertThat(registry.summary("rewrite.checkstyle.passes", "check", "CountDown").count()).isEqualTo(1L)
+        assertThat(registry.summary("rewrite.checkstyle.passes", "check", "CountDown").max()).isEqualTo(3.0)
+        assertThat(registry.counter("rewrite.checkstyle.passes.exhausted", "check", "CountDown").count())
+                .isEqualTo(0.0)
+    }
+
+    @Test
+    fun passesStopAtTheMaximum() {
+        val visitedByPass = mutableListOf<MutableList<Any?>>()
+        val countDown = countDown(visitedByPass)
+        countDown.setMaxPasses(2)
+
+        val fixed = parse("""
+            public class A {
+                int a = 5;
+            }
+        """).refactor().visit(countDown).fix(1).fixed
+
+        assertThat(fixed.printTrimmed()).isEqualTo("""
+            public class A {
+                int a = 3;
+            }
+        """.trimIndent())
+        assertThat(visitedByPass).hasSize(2)
+        assertThat(countDown.isPassesExhausted).isTrue()
+        assertThat(registry.summary("rewrite.checkstyle.passes", "check", "CountDown").max()).isEqualTo(2.0)
+        assertThat(registry.counter("rewrite.checkstyle.passes.exhausted", "check", "CountDown").count())
+                .isEqualTo(1.0)
+    }
+
+    @Test
+    fun exhaustionIsForgottenByTheNextCompilationUnit() {
+        val countDown = countDown()
+        countDown.setMaxPasses(1)
+
+        cu.refactor().visit(countDown).fix(1)
+        assertThat(countDown.isPassesExhausted).isTrue()
+
+        parse("""
+            public class B {
+                int b = 0;
+            }
+        """).refactor().visit(countDown).fix(1)
+        assertThat(countDown.isPassesExhausted).isFalse()
+        assertThat(registry.counter("rewrite.checkstyle.passes.exhausted", "check", "CountDown").count())
+                .isEqualTo(1.0)
+    }
+
+    @Test
+    fun simplifyBooleanExpressionStopsAtTheMaximumPasses() {
+        val rewriteCheckstyle = RewriteCheckstyle("""
+            <?xml version="1.0"?>
+            <!DOCTYPE module PUBLIC
+                "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+                "https://checkstyle.org/dtds/configuration_1_3.dtd">
+            <module name="Checker">
+                <module name="TreeWalker">
+                    <module name="SimplifyBooleanExpression"/>
+                </module>
+            </module>
+        """.trimIndent().trim().byteInputStream())
+        val nested = parse("""
+            public class A {
+                boolean foo(boolean b) {
+                    return (!true) && b;
+                }
+            }
+        """)
+
+        // simplifying the operand inside the parentheses exposes the enclosing expression to another pass
+        val converged = rewriteCheckstyle.apply(nested.refactor()).fix(1).fixed
+        assertThat(converged.printTrimmed()).contains("return false;")
+        assertThat(rewriteCheckstyle.isConverged).isTrue()
+        assertThat(registry.summary("rewrite.checkstyle.passes", "check", "SimplifyBooleanExpression").max())
+                .isGreaterThanOrEqualTo(2.0)
+
+        rewriteCheckstyle.setMaxPasses(1)
+        val capped = rewriteCheckstyle.apply(nested.refactor()).fix(1).fixed
+        assertThat(capped.printTrimmed()).contains("return false && b;")
+        assertThat(rewriteCheckstyle.isConverged).isFalse()
+        assertThat(registry.counter("rewrite.checkstyle.passes.exhausted", "check", "SimplifyBooleanExpression")
+                .count()).isEqualTo(1.0)
+    }
+}
@@ -52,4 +52,14 @@ open class FinalClassTest : CheckstyleRefactorVisitorTest(FinalClass()) {
                 }
             """
     )
+
+    @Test
+    fun alreadyFinal() = assertUnchanged(
+            before = """
+                public final class A {
+                    private A() {
+                    }
+                }
+            """
+    )
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.java.JavaParser
+
+class FusedVisitorTest {
+    private fun rewriteCheckstyle(vararg modules: String) = RewriteCheckstyle("""
+        <?xml version="1.0"?>
+        <!DOCTYPE module PUBLIC
+            "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+            "https://checkstyle.org/dtds/configuration_1_3.dtd">
+        <module name="Checker">
+            <module name="TreeWalker">
+                ${modules.joinToString("\n") { """<module name="$it"/>""" }}
+            </module>
+        </module>
+    """.trimIndent().trim().byteInputStream())
+
+    private fun parse(source: String) = JavaParser.fromJavaVersion().build().parse(source.trimIndent())[0]
+
+    @Test
+    fun adjacentFusibleVisitorsRunTogetherInRegistryOrder() {
+        val visitors = rewriteCheckstyle("TypecastParenPad", "FinalLocalVariable", "NoFinalizer").orderedVisitors()
+
+        assertThat(visitors.map { it.javaClass.simpleName }).containsExactly("FinalLocalVariable", "FusedVisitor")
+        assertThat(visitors[1].tags.single().value).isEqualTo("NoFinalizer,TypecastParenPad")
+    }
+
+    @Test
+    fun visitorsThatAreNotFusibleSeparateRuns() {
+        val visitors = rewriteCheckstyle("FinalClass", "FinalLocalVariable", "HideUtilityClassConstructor",
+                "NeedBraces").orderedVisitors()
+
+        assertThat(visitors.map { it.javaClass.simpleName })
+                .containsExactly("FinalClass", "FinalLocalVariable", "FusedVisitor")
+        assertThat(visitors[2].tags.single().value).isEqualTo("HideUtilityClassConstructor,NeedBraces")
+    }
+
+    @Test
+    fun fusedVisitorsFixTheSameAsVisitorsRunOneByOne() {
+        val rewriteCheckstyle = rewriteCheckstyle("EmptyForInitializerPad", "FinalClass", "FinalLocalVariable",
+                "HideUtilityClassConstructor", "LeftCurly", "NeedBraces", "NoFinalizer", "OperatorWrap",
+                "RightCurly", "TypecastParenPad")
+        val cu = parse("""
+            public class A
+            {
+                public static int foo(long m, boolean b)
+                {
+                    int n = ( int ) m;
+                    for ( ; n < 10; n++)
+                        if (b) n = n
+                            + 1;
+                        else if (n > 5)
+                            return n;
+                    try {
+                        n = b ? 1
+                            : 2;
+                    }
+                    finally
+                    {
+                        m = 0;
+                    }
+                    return n;
+                }
+
+                @Override
+                protected void finalize() throws Throwable {
+                    super.finalize();
+                }
+            }
+        """)
+
+        assertThat(rewriteCheckstyle.orderedVisitors().filterIsInstance<FusedVisitor>()).hasSize(2)
+
+        var oneByOne = cu.refactor()
+        for (visitor in rewriteCheckstyle.copy().visitors) {
+            oneByOne = oneByOne.visit(visitor)
+        }
+
+        assertThat(rewriteCheckstyle.apply(cu.refactor()).fix().fixed.printTrimmed())
+                .isEqualTo(oneByOne.fix().fixed.printTrimmed())
+                .isNotEqualTo(cu.printTrimmed())
+    }
+
+    @Test
+    fun fusedVisitorsFixWhatEachFixesOnItsOwn() {
+        val rewriteCheckstyle = rewriteCheckstyle("NoFinalizer", "TypecastParenPad")
+        val fixed = rewriteCheckstyle.apply(parse("""
+            public class A {
+                {
+                    long m = 0L;
+                    int n = ( int ) m;
+                }
+
+                @Override
+                protected void finalize() throws Throwable {
+                    super.finalize();
+                }
+            }
+        """).refactor()).fix()
+
+        assertThat(fixed.fixed.printTrimmed()).isEqualTo("""
+            public class A {
+                {
+                    long m = 0L;
+                    int n = (int) m;
+                }
+            }
+        """.trimIndent())
+        assertThat(rewriteCheckstyle.getRulesThatMadeChanges(fixed))
+                .containsExactly(NoFinalizer().name, TypecastParenPad().name)
+    }
+
+    @Test
+    fun onlyDelegatesThatMadeChangesAreReported() {
+        val rewriteCheckstyle = rewriteCheckstyle("NoFinalizer", "TypecastParenPad")
+        val fixed = rewriteCheckstyle.apply(parse("""
+            public class A {
+                {
+                    long m = 0L;
+                    int n = ( int ) m;
+                }
+            }
+        """).refactor()).fix()
+
+        assertThat(rewriteCheckstyle.getRulesThatMadeChanges(fixed)).containsExactly(TypecastParenPad().name)
+    }
+}
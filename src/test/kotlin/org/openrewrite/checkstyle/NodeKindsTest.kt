@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.java.JavaParser
+import org.openrewrite.java.tree.J
+
+class NodeKindsTest {
+    @Test
+    fun kindsPastThe63rdShareTheLastBit() {
+        val nodeKinds = NodeKinds()
+        val kinds = (1..70).map { dimensions -> java.lang.reflect.Array.newInstance(NodeKindsTest::class.java, *IntArray(dimensions)).javaClass }
+        val bits = kinds.map { nodeKinds.of(it) }
+
+        assertThat(bits.subList(0, 64)).isEqualTo((0..63).map { 1L shl it })
+        assertThat(bits.subList(63, 70)).containsOnly(Long.MIN_VALUE)
+
+        // a kind keeps its bit once it has one
+        assertThat(kinds.map { nodeKinds.of(it) }).isEqualTo(bits)
+
+        // and the bits of the other instances are unaffected
+        assertThat(NodeKinds().of(kinds[69])).isEqualTo(1L)
+    }
+
+    @Test
+    fun subtreesWithoutAKindAreSkipped() {
+        val nodeKinds = NodeKinds()
+        val ternary = nodeKinds.of(J.Ternary::class.java)
+        val methodInvocation = nodeKinds.of(J.MethodInvocation::class.java)
+
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                int n = 0;
+                void foo() {
+                    foo();
+                }
+            }
+        """.trimIndent())[0]
+
+        val summaries = nodeKinds.summarize(cu)
+        val clazz = cu.classes[0]
+        val field = clazz.body.statements[0]
+        val method = clazz.body.statements[1]
+
+        assertThat(NodeKinds.mayContain(summaries, clazz, methodInvocation)).isTrue()
+        assertThat(NodeKinds.mayContain(summaries, method, methodInvocation)).isTrue()
+        assertThat(NodeKinds.mayContain(summaries, field, methodInvocation)).isFalse()
+        assertThat(NodeKinds.mayContain(summaries, clazz, ternary)).isFalse()
+        assertThat(NodeKinds.mayContain(summaries, clazz, NodeKinds.ALL)).isTrue()
+    }
+
+    @Test
+    fun nodesWithoutASummaryMayContainAnyKind() {
+        val parser = JavaParser.fromJavaVersion().build()
+        val nodeKinds = NodeKinds()
+        val summarized = parser.parse("public class A {}")[0]
+        parser.reset()
+        val other = parser.parse("public class B {}")[0]
+
+        val summaries = nodeKinds.summarize(summarized)
+
+        assertThat(NodeKinds.mayContain(summaries, other.classes[0], nodeKinds.of(J.Ternary::class.java))).isTrue()
+        assertThat(NodeKinds.mayContain(null, summarized, nodeKinds.of(J.Ternary::class.java))).isTrue()
+    }
+
+    @Test
+    fun summaryIsSharedUntilTheCompilationUnitChanges() {
+        val parser = JavaParser.fromJavaVersion().build()
+        val nodeKinds = NodeKinds()
+        val a = parser.parse("public class A {}")[0]
+        parser.reset()
+        val b = parser.parse("public class B {}")[0]
+
+        val summaryOfA = nodeKinds.summarize(a)
+        assertThat(nodeKinds.summarize(a)).isSameAs(summaryOfA)
+
+        val summaryOfB = nodeKinds.summarize(b)
+        assertThat(summaryOfB).isNotSameAs(summaryOfA)
+        assertThat(summaryOfB).containsKey(b).doesNotContainKey(a)
+        assertThat(nodeKinds.summarize(a)).isNotSameAs(summaryOfA).isEqualTo(summaryOfA)
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.java.JavaParser
+import java.io.File
+import java.nio.file.Path
+import kotlin.concurrent.thread
+
+class RewriteCheckstyleTest {
+    @Test
+    fun onlyVisitorsForConfiguredModules() {
+        val rewriteCheckstyle = RewriteCheckstyle("""
+            <?xml version="1.0"?>
+            <!DOCTYPE module PUBLIC
+                "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+                "https://checkstyle.org/dtds/configuration_1_3.dtd">
+            <module name="Checker">
+                <module name="TreeWalker">
+                    <module name="NoFinalizer"/>
+                    <module name="NeedBraces">
+                        <property name="allowSingleLineStatement" value="true"/>
+                    </module>
+                    <module name="JavadocMethod"/>
+                </module>
+            </module>
+        """.trimIndent().trim().byteInputStream())
+
+        assertThat(rewriteCheckstyle.visitors.map { it.javaClass.simpleName })
+                .containsExactly("NeedBraces", "NoFinalizer")
+    }
+
+    @Test
+    fun copyBuildsNewVisitorsFromTheSameModules() {
+        val rewriteCheckstyle = RewriteCheckstyle(config("NoFinalizer", "NeedBraces").byteInputStream())
+        rewriteCheckstyle.setMaxPasses(3)
+        val misses = CheckstyleRefactorVisitor.getConfigurationCacheMisses()
+
+        val copy = rewriteCheckstyle.copy()
+
+        assertThat(CheckstyleRefactorVisitor.getConfigurationCacheMisses()).isEqualTo(misses)
+        assertThat(copy.visitors.map { it.javaClass.simpleName })
+                .containsExactly("NeedBraces", "NoFinalizer")
+        assertThat(copy.visitors).doesNotContainAnyElementsOf(rewriteCheckstyle.visitors)
+
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                void foo(boolean b) {
+                    if (b) return;
+                }
+            }
+        """.trimIndent())[0]
+        assertThat(copy.apply(cu.refactor()).fix().fixed.printTrimmed())
+                .isEqualTo(rewriteCheckstyle.apply(cu.refactor()).fix().fixed.printTrimmed())
+    }
+
+    @Test
+    fun suppressedLinesReferToTheSourceAsItWasParsed(@TempDir dir: Path) {
+        val suppressionsFile = dir.resolve("suppressions.xml").toFile().apply {
+            writeText("""<suppressions><suppress checks="SimplifyBooleanExpression" lines="6"/></suppressions>""")
+        }
+        val rewriteCheckstyle = RewriteCheckstyle("""
+            <?xml version="1.0"?>
+            <!DOCTYPE module PUBLIC
+                "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+                "https://checkstyle.org/dtds/configuration_1_3.dtd">
+            <module name="Checker">
+                <module name="SuppressionFilter">
+                    <property name="file" value="${suppressionsFile.absolutePath}"/>
+                </module>
+                <module name="TreeWalker">
+                    <module name="NeedBraces"/>
+                    <module name="SimplifyBooleanExpression"/>
+                </module>
+            </module>
+        """.trimIndent().trim().byteInputStream())
+
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                void foo(boolean b) {
+                    if (b) return;
+                }
+                void bar(boolean b) {
+                    boolean c = b == true;
+                    boolean d = b == true;
+                }
+            }
+        """.trimIndent())[0]
+
+        // NeedBraces runs first and moves the declarations down, but the suppression still covers the first one
+        val fixed = rewriteCheckstyle.apply(cu.refactor()).fix().fixed.printTrimmed()
+        assertThat(fixed).contains("if (b) {")
+        assertThat(fixed).contains("boolean c = b == true;")
+        assertThat(fixed).contains("boolean d = b;")
+    }
+
+    private fun config(vararg modules: String) = """
+        <?xml version="1.0"?>
+        <!DOCTYPE module PUBLIC
+            "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+            "https://checkstyle.org/dtds/configuration_1_3.dtd">
+        <module name="Checker">
+            <module name="TreeWalker">
+                ${modules.joinToString("\n") { """<module name="$it"/>""" }}
+            </module>
+        </module>
+    """.trimIndent().trim()
+
+    /**
+     * Rewrites a configuration file and waits for the change to be noticed, which happens on another thread.
+     */
+    private fun rewrite(configFile: File, config: String) {
+        val generation = ConfigurationWatcher.generation(configFile)
+        configFile.writeText(config)
+        val deadline = System.currentTimeMillis() + 30_000
+        while (ConfigurationWatcher.generation(configFile) == generation && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50)
+        }
+        assertThat(ConfigurationWatcher.generation(configFile)).isNotEqualTo(generation)
+    }
+
+    @Test
+    fun reloadsChangedConfigurationFile(@TempDir dir: Path) {
+        val configFile = dir.resolve("checkstyle.xml").toFile().apply { writeText(config("NoFinalizer")) }
+        val rewriteCheckstyle = RewriteCheckstyle(configFile.toPath(), null)
+        rewriteCheckstyle.setReloadOnChange(true)
+
+        rewrite(configFile, config("NoFinalizer", "FinalLocalVariable"))
+
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                {
+                    int n = 0;
+                }
+            }
+        """.trimIndent())[0]
+        val fixed = rewriteCheckstyle.apply(cu.refactor()).fix().fixed
+
+        assertThat(rewriteCheckstyle.visitors.map { it.javaClass.simpleName })
+                .containsExactly("FinalLocalVariable", "NoFinalizer")
+        assertThat(fixed.printTrimmed()).contains("final int n = 0;")
+    }
+
+    @Test
+    fun visitorWhoseModuleIsRemovedStopsFixing(@TempDir dir: Path) {
+        val configFile = dir.resolve("checkstyle.xml").toFile().apply { writeText(config("FinalLocalVariable")) }
+        val visitor = FinalLocalVariable()
+        visitor.setReloadOnChange(true)
+        visitor.setConfigFile(configFile)
+
+        val source = """
+            public class A {
+                {
+                    int n = 0;
+                }
+            }
+        """.trimIndent()
+        val parser = JavaParser.fromJavaVersion().build()
+
+        assertThat(parser.parse(source)[0].refactor().visit(visitor).fix().fixed.printTrimmed())
+                .contains("final int n = 0;")
+
+        rewrite(configFile, config("NoFinalizer"))
+        eventually {
+            parser.reset()
+            assertThat(parser.parse(source)[0].refactor().visit(visitor).fix().fixed.printTrimmed())
+                    .isEqualTo(source)
+        }
+
+        rewrite(configFile, config("FinalLocalVariable"))
+        eventually {
+            parser.reset()
+            assertThat(parser.parse(source)[0].refactor().visit(visitor).fix().fixed.printTrimmed())
+                    .contains("final int n = 0;")
+        }
+    }
+
+    @Test
+    fun visitorsOfOneCompilationUnitUseOneVersionOfTheConfiguration(@TempDir dir: Path) {
+        val configFile = dir.resolve("checkstyle.xml").toFile()
+                .apply { writeText(config("FinalLocalVariable", "NoFinalizer")) }
+        val finalLocalVariable = FinalLocalVariable().apply {
+            setReloadOnChange(true)
+            setConfigFile(configFile)
+        }
+        val noFinalizer = NoFinalizer().apply {
+            setReloadOnChange(true)
+            setConfigFile(configFile)
+        }
+
+        val parser = JavaParser.fromJavaVersion().build()
+        val cu = parser.parse("""
+            public class A {
+                {
+                    int n = 0;
+                }
+            }
+        """.trimIndent())[0]
+
+        // the first visitor pins the version of the configuration for the compilation unit on this thread, so a
+        // change that another thread sees reloaded before the second visitor begins doesn't reach it
+        assertThat(finalLocalVariable.beginVisit(cu)).isTrue()
+        rewrite(configFile, config("FinalLocalVariable"))
+        parser.reset()
+        val other = parser.parse("public class B {}")[0]
+        val otherNoFinalizer = NoFinalizer().apply {
+            setReloadOnChange(true)
+            setConfigFile(configFile)
+        }
+        eventually {
+            var beganVisit = true
+            thread { beganVisit = otherNoFinalizer.beginVisit(other) }.join()
+            assertThat(beganVisit).isFalse()
+        }
+        assertThat(noFinalizer.beginVisit(cu)).isTrue()
+    }
+
+    /**
+     * Configuration files are reloaded in the background, so a visit soon after a change may still use the
+     * previous version.
+     */
+    private fun eventually(assertion: () -> Unit) {
+        val deadline = System.currentTimeMillis() + 30_000
+        while (true) {
+            try {
+                assertion()
+                return
+            } catch (e: AssertionError) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e
+                }
+                Thread.sleep(50)
+            }
+        }
+    }
+}
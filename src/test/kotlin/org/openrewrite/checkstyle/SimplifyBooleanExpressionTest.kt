@@ -51,4 +51,22 @@ open class SimplifyBooleanExpressionTest: CheckstyleRefactorVisitorTest(Simplify
                 }
             """
     )
+
+    @Test
+    fun simplifyNestedExpressionsOverSeveralPasses() = assertRefactored(
+            before = """
+                public class A {
+                    boolean foo(boolean b, boolean c) {
+                        return ((!true) && b) || c;
+                    }
+                }
+            """,
+            after = """
+                public class A {
+                    boolean foo(boolean b, boolean c) {
+                        return c;
+                    }
+                }
+            """
+    )
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.java.JavaParser
+import org.openrewrite.java.tree.Expression
+import org.openrewrite.java.tree.J
+
+class StructuralEqualityTest {
+    private fun initializers(vararg expressions: String): List<Expression> {
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                boolean a, b, c;
+                boolean n(boolean b) { return b; }
+                <T> boolean t() { return true; }
+                ${expressions.mapIndexed { i, e -> "boolean v$i = $e;" }.joinToString("\n")}
+            }
+        """.trimIndent())[0]
+
+        return cu.classes[0].body.statements
+                .filterIsInstance<J.VariableDecls>()
+                .filter { it.vars[0].simpleName.startsWith("v") }
+                .map { it.vars[0].initializer!! }
+    }
+
+    private fun assertEqual(a: Expression, b: Expression) {
+        assertThat(StructuralEquality.equal(a, b)).isTrue()
+    }
+
+    @Test
+    fun formattingIsIgnored() {
+        val (a, b) = initializers("a&&  n(b  ) || !c", "a && n(b) ||!c")
+        assertEqual(a, b)
+    }
+
+    @Test
+    fun commentsAreIgnored() {
+        val (a, b) = initializers("a /* left */ && n(/* arg */ b)", "a && n(b)")
+        assertEqual(a, b)
+    }
+
+    @Test
+    fun differencesAreFound() {
+        val (and, or, otherArg, otherName, parenthesized) = initializers("a && n(b)", "a || n(b)", "a && n(c)", "c && n(b)", "a && (n(b))")
+        assertThat(StructuralEquality.equal(and, or)).isFalse()
+        assertThat(StructuralEquality.equal(and, otherArg)).isFalse()
+        assertThat(StructuralEquality.equal(and, otherName)).isFalse()
+        assertThat(StructuralEquality.equal(and, parenthesized)).isFalse()
+    }
+
+    @Test
+    fun otherKindsFallBackToTheirSource() {
+        val (ternary, reformatted, swapped) = initializers("a ? b : c", "a?b  :c", "a ? c : b")
+        assertEqual(ternary, reformatted)
+        assertThat(StructuralEquality.equal(ternary, swapped)).isFalse()
+    }
+
+    @Test
+    fun invocationsWithTypeParametersFallBackToTheirSource() {
+        val (a, b, other) = initializers("this.<String>t()", "this.<String> t( )", "this.<Integer>t()")
+        assertEqual(a, b)
+        assertThat(StructuralEquality.equal(a, other)).isFalse()
+    }
+}
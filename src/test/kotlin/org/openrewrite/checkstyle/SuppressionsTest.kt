@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.java.JavaParser
+import org.openrewrite.java.tree.J
+import java.io.File
+import java.nio.file.Path
+import java.util.regex.Pattern
+
+class SuppressionsTest {
+    private fun suppressions(vararg suppress: Suppressions.Suppress) = Suppressions(null, suppress.toList())
+
+    private fun suppress(checks: String? = null, id: String? = null, lines: String? = null) = Suppressions.Suppress(
+            null,
+            checks?.let { Pattern.compile(it) },
+            id,
+            lines?.let { Suppressions.LineRanges.parse(it) } ?: Suppressions.LineRanges.ALL
+    )
+
+    @Test
+    fun lineRangesAreMerged() {
+        val lines = Suppressions.LineRanges.parse("25-40, 10,20-30")
+
+        assertThat(lines.starts).containsExactly(10, 20)
+        assertThat(lines.ends).containsExactly(10, 40)
+        assertThat(lines.covers(10, 10)).isTrue()
+        assertThat(lines.covers(20, 40)).isTrue()
+        assertThat(lines.covers(9, 10)).isFalse()
+        assertThat(lines.covers(11, 11)).isFalse()
+        assertThat(lines.covers(30, 41)).isFalse()
+    }
+
+    @Test
+    fun lineRangesOfSeveralSuppressionsAreUnited() {
+        val lines = suppressions(
+                suppress(checks = "FinalLocalVariable", lines = "1-3"),
+                suppress(checks = "FinalLocalVariable", lines = "4,8")
+        ).suppressed("A.java", "FinalLocalVariable", null)!!
+
+        assertThat(lines.starts).containsExactly(1, 8)
+        assertThat(lines.ends).containsExactly(4, 8)
+    }
+
+    @Test
+    fun matchBySimpleName() {
+        val suppressions = suppressions(suppress(checks = "FinalLocalVariable"))
+
+        assertThat(suppressions.suppressed("A.java", "FinalLocalVariable", null)).isSameAs(Suppressions.LineRanges.ALL)
+        assertThat(suppressions.suppressed("A.java", "NeedBraces", null)).isNull()
+    }
+
+    @Test
+    fun matchByFullyQualifiedCheckName() {
+        val suppressions = suppressions(suppress(checks = "com\\.puppycrawl\\.tools\\.checkstyle\\.checks\\.coding\\..*"))
+
+        assertThat(Suppressions.checkName("FinalLocalVariable"))
+                .isEqualTo("com.puppycrawl.tools.checkstyle.checks.coding.FinalLocalVariableCheck")
+        assertThat(suppressions.suppressed("A.java", "FinalLocalVariable", null)).isSameAs(Suppressions.LineRanges.ALL)
+        assertThat(suppressions.suppressed("A.java", "NeedBraces", null)).isNull()
+    }
+
+    @Test
+    fun matchById() {
+        val suppressions = suppressions(suppress(id = "generated"))
+
+        assertThat(suppressions.suppressed("A.java", "FinalLocalVariable", "generated")).isSameAs(Suppressions.LineRanges.ALL)
+        assertThat(suppressions.suppressed("A.java", "FinalLocalVariable", "other")).isNull()
+        assertThat(suppressions.suppressed("A.java", "FinalLocalVariable", null)).isNull()
+    }
+
+    @Test
+    fun nodeLinesStartAtTheFirstTokenOfEachNode() {
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                @Deprecated
+                public void foo() {
+                    int n = 0;
+                }
+            }
+        """.trimIndent())[0]
+
+        val method = cu.classes[0].body.statements[0] as J.MethodDecl
+        val nodeLines = Suppressions.nodeLines(cu)
+
+        assertThat(nodeLines[cu.classes[0].id]).containsExactly(1, 6)
+        assertThat(nodeLines[method.id]).containsExactly(2, 5)
+        assertThat(nodeLines[method.body!!.statements[0].id]).containsExactly(4, 4)
+    }
+
+    @Test
+    fun externalEntitiesAreNotResolved(@TempDir tempDir: Path) {
+        val external = tempDir.resolve("external.xml").toFile().apply {
+            writeText("""<suppress checks="FinalLocalVariable"/>""")
+        }
+        val suppressionsFile = tempDir.resolve("suppressions.xml").toFile().apply {
+            writeText("""
+                <?xml version="1.0"?>
+                <!DOCTYPE suppressions [
+                    <!ENTITY external SYSTEM "${external.toURI()}">
+                ]>
+                <suppressions>
+                    &external;
+                </suppressions>
+            """.trimIndent())
+        }
+
+        val suppressions = try {
+            Suppressions.load(suppressionsFile.path, null)
+        } catch (e: Exception) {
+            null
+        }
+
+        assertThat(suppressions?.suppressed("A.java", "FinalLocalVariable", null)).isNull()
+    }
+
+    @Test
+    fun suppressedLinesAreLeftUnchanged(@TempDir tempDir: Path) {
+        val suppressionsFile = tempDir.resolve("suppressions.xml").toFile().apply {
+            writeText("""
+                <?xml version="1.0"?>
+                <suppressions>
+                    <suppress checks="FinalLocalVariable" lines="3"/>
+                </suppressions>
+            """.trimIndent())
+        }
+
+        val visitor = FinalLocalVariable()
+        visitor.setConfig(config(suppressionsFile))
+
+        val cu = JavaParser.fromJavaVersion().build().parse("""
+            public class A {
+                {
+                    int n = 0;
+                    int m = 0;
+                }
+            }
+        """.trimIndent())[0]
+
+        assertThat(cu.refactor().visit(visitor).fix().fixed.printTrimmed()).isEqualTo("""
+            public class A {
+                {
+                    int n = 0;
+                    final int m = 0;
+                }
+            }
+        """.trimIndent())
+    }
+
+    private fun config(suppressionsFile: File) = """
+        <?xml version="1.0"?>
+        <!DOCTYPE module PUBLIC
+            "-//Checkstyle//DTD Checkstyle Configuration 1.3//EN"
+            "https://checkstyle.org/dtds/configuration_1_3.dtd">
+        <module name="Checker">
+            <module name="SuppressionFilter">
+                <property name="file" value="${suppressionsFile.absolutePath}"/>
+            </module>
+            <module name="TreeWalker">
+                <module name="FinalLocalVariable"/>
+            </module>
+        </module>
+    """.trimIndent().trim()
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+
+class TextPrefilterTest {
+    private fun TextPrefilter.mightApplyTo(source: String) =
+            mightApplyTo(ByteBuffer.wrap(source.toByteArray()))
+
+    @Test
+    fun fileWithoutRequiredTextIsSkipped() {
+        val prefilter = TextPrefilter(listOf(NoFinalizer()))
+        assertThat(prefilter.mightApplyTo("public class A { void close() {} }")).isFalse()
+        assertThat(prefilter.mightApplyTo("public class A { void finalize() {} }")).isTrue()
+    }
+
+    @Test
+    fun allOfAVisitorsRequiredTextMustBePresent() {
+        val prefilter = TextPrefilter(listOf(DefaultComesLast()))
+        assertThat(prefilter.mightApplyTo("class A { void a(int n) { switch (n) { case 1: } } }")).isFalse()
+        assertThat(prefilter.mightApplyTo("class A { String s = \"default\"; }")).isFalse()
+        assertThat(prefilter.mightApplyTo("class A { void a(int n) { switch (n) { default: case 1: } } }")).isTrue()
+    }
+
+    @Test
+    fun anyVisitorsRequiredTextIsEnough() {
+        val prefilter = TextPrefilter(listOf(NoFinalizer(), StringLiteralEquality()))
+        assertThat(prefilter.mightApplyTo("class A { boolean b = \"a\" == s; }")).isTrue()
+        assertThat(prefilter.mightApplyTo("class A { void finalize() {} }")).isTrue()
+        assertThat(prefilter.mightApplyTo("class A { boolean b = 1 == 2; }")).isFalse()
+    }
+
+    @Test
+    fun visitorWithoutRequiredTextAppliesToAnySource() {
+        val prefilter = TextPrefilter(listOf(NoFinalizer(), NeedBraces()))
+        assertThat(prefilter.mightApplyTo("class A {}")).isTrue()
+    }
+
+    @Test
+    fun onlyTheBytesFromPositionToLimitAreSearched() {
+        val prefilter = TextPrefilter(listOf(NoFinalizer()))
+        val source = ByteBuffer.wrap("finalize class A {} finalize".toByteArray())
+        source.position(8).limit(source.capacity() - 8)
+        assertThat(prefilter.mightApplyTo(source)).isFalse()
+    }
+
+    @Test
+    fun utf16SourceIsNotSkipped() {
+        val prefilter = TextPrefilter(listOf(NoFinalizer()))
+        assertThat(prefilter.mightApplyTo(ByteBuffer.wrap("class A { void finalize() {} }".toByteArray(Charsets.UTF_16)))).isTrue()
+    }
+}
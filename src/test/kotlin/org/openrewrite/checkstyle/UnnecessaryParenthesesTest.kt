@@ -63,4 +63,24 @@ open class UnnecessaryParenthesesTest: CheckstyleRefactorVisitorTest(Unnecessary
                 }
             """
     )
+
+    @Test
+    fun unwrapIdentOnlyParentheses() = assertRefactored(
+            before = """
+                public class A {
+                    void foo(int n) {
+                        int bar = 1;
+                        foo((bar));
+                    }
+                }
+            """,
+            after = """
+                public class A {
+                    void foo(int n) {
+                        int bar = 1;
+                        foo(bar);
+                    }
+                }
+            """
+    )
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.checkstyle.policy
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.Cursor
+import org.openrewrite.java.JavaParser
+import org.openrewrite.java.tree.J
+import org.openrewrite.checkstyle.policy.Token.*
+
+class TokenTest {
+    private val cu = JavaParser.fromJavaVersion().build().parse("""
+        public class A {
+            int n;
+            public A() {}
+            void foo() {}
+        }
+    """.trimIndent())[0]
+
+    private val clazz = Cursor(Cursor(null, cu), cu.classes[0])
+    private val body = Cursor(clazz, cu.classes[0].body)
+    private val field = Cursor(body, body.getTree<J.Block<*>>().statements[0])
+    private val constructor = Cursor(body, body.getTree<J.Block<*>>().statements[1])
+    private val method = Cursor(body, body.getTree<J.Block<*>>().statements[2])
+
+    @Test
+    fun eachTokenHasItsOwnBit() {
+        val all = Token.mask(*Token.values())
+        assertThat(java.lang.Long.bitCount(all)).isEqualTo(Token.values().size)
+        Token.values().forEach { assertThat(it.bit()).isEqualTo(1L shl it.ordinal) }
+    }
+
+    @Test
+    fun maskOfSetMatchesMaskOfTokens() {
+        assertThat(Token.mask(setOf(METHOD_DEF, CTOR_DEF, OBJBLOCK))).isEqualTo(Token.mask(METHOD_DEF, CTOR_DEF, OBJBLOCK))
+        assertThat(Token.mask(emptySet())).isEqualTo(0L)
+    }
+
+    @Test
+    fun matchesOnlyTokensInTheMask() {
+        assertThat(Token.matchesOneOf(Token.mask(METHOD_DEF), method)).isTrue()
+        assertThat(Token.matchesOneOf(Token.mask(CTOR_DEF, CLASS_DEF), method)).isFalse()
+        assertThat(Token.matchesOneOf(Token.mask(CTOR_DEF), constructor)).isTrue()
+        assertThat(Token.matchesOneOf(Token.mask(OBJBLOCK), body)).isTrue()
+        assertThat(Token.matchesOneOf(Token.mask(CLASS_DEF), clazz)).isTrue()
+        assertThat(Token.matchesOneOf(0L, method)).isFalse()
+        assertThat(Token.matchesOneOf(Token.mask(*Token.values()), null)).isFalse()
+    }
+
+    @Test
+    fun configuredTokensAreIntersectedWithTheTokensAsked() {
+        assertThat(Token.matchesOneOf(setOf(METHOD_DEF), method, METHOD_DEF, CTOR_DEF)).isTrue()
+        assertThat(Token.matchesOneOf(setOf(CTOR_DEF), method, METHOD_DEF)).isFalse()
+        assertThat(Token.matchesOneOf(setOf(METHOD_DEF), method, CTOR_DEF)).isFalse()
+    }
+
+    @Test
+    fun masksAgreeWithEachTokensMatcher() {
+        for (cursor in listOf(body, field, constructor, method)) {
+            for (token in Token.values()) {
+                assertThat(Token.matchesOneOf(token.bit(), cursor))
+                        .describedAs("$token on ${cursor.getTree<J>().javaClass.simpleName}")
+                        .isEqualTo(token.matcher.matches(cursor))
+            }
+        }
+    }
+}